@@ -8,14 +8,14 @@ import { Input } from "@/components/ui/input"
 import { Button } from "@/components/ui/button"
 import { RiUserLine, RiSearchLine, RiAddLine, RiEditLine, RiDeleteBinLine } from "react-icons/ri"
 import { Sidebar } from "@/components/sidebar" // Import Sidebar component
-import { getApiUrl } from "@/lib/api"
+import { fetchPage, getApiUrl } from "@/lib/api"
 
 interface Customer {
   id: number;
   name: string;
   phone: string;
   email: string;
-  address: string;
+  address?: string;
   totalCredit: number;
   creditBalance: number;
   active: boolean;
@@ -26,12 +26,15 @@ export default function CustomerListPage() {
   const [customers, setCustomers] = useState<Customer[]>([])
   const [loading, setLoading] = useState(true)
   const [searchQuery, setSearchQuery] = useState("")
+  const [nextCursor, setNextCursor] = useState<string | null>(null)
+  const [loadingMore, setLoadingMore] = useState(false)
 
   useEffect(() => {
     fetchCustomers()
   }, [])
 
-  const fetchCustomers = async () => {
+  // Without a cursor the list restarts from the first page; with one the next page is appended
+  const fetchCustomers = async (cursor?: string | null) => {
     try {
       const adminData = localStorage.getItem('adminData')
       if (!adminData) {
@@ -40,20 +43,22 @@ export default function CustomerListPage() {
       }
 
       const { id } = JSON.parse(adminData)
-      const response = await fetch(getApiUrl(`/customers`), {
+      if (cursor) {
+        setLoadingMore(true)
+      }
+      const page = await fetchPage<Customer>(`/customers`, {
         headers: {
           'Admin-ID': id.toString()
         }
-      })
+      }, cursor)
 
-      if (response.ok) {
-        const data = await response.json()
-        setCustomers(data)
-      }
+      setCustomers(previous => cursor ? [...previous, ...page.items] : page.items)
+      setNextCursor(page.nextCursor)
     } catch (error) {
       console.error('Failed to fetch customers:', error)
     } finally {
       setLoading(false)
+      setLoadingMore(false)
     }
   }
 
@@ -68,6 +73,8 @@ export default function CustomerListPage() {
       if (response.ok) {
         const data = await response.json()
         setCustomers(data)
+        // Search results are a single ranked list
+        setNextCursor(null)
       }
     } catch (error) {
       console.error('Failed to search customers:', error)
@@ -303,6 +310,17 @@ export default function CustomerListPage() {
                 </tbody>
               </table>
             </div>
+            {nextCursor && !loading && (
+              <div className="flex justify-center pt-4">
+                <Button
+                  variant="outline"
+                  onClick={() => fetchCustomers(nextCursor)}
+                  disabled={loadingMore}
+                >
+                  {loadingMore ? "Loading..." : "Load more customers"}
+                </Button>
+              </div>
+            )}
           </CardContent>
         </Card>
       </div>
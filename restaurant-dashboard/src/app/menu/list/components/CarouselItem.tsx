@@ -4,6 +4,7 @@ import { Badge } from "@/components/ui/badge"
 import { Button } from "@/components/ui/button"
 import { RiEditLine, RiDeleteBinLine, RiStarFill } from "react-icons/ri"
 import { motion } from "framer-motion"
+import { menuItemImageUrl } from "@/lib/api"
 
 interface CarouselItemProps {
   item: any;
@@ -55,7 +56,7 @@ export function CarouselItem({
           {/* Main Image */}
           <div className="relative w-[300px] h-[300px] rounded-full overflow-hidden">
             <img
-              src={item.imageUrl || '/placeholder.jpg'}
+              src={menuItemImageUrl(item.id)}
               alt={item.name}
               className="w-full h-full object-cover"
             />
@@ -112,7 +113,7 @@ export function CarouselItem({
                 ${index === 0 ? 'border-primary' : 'border-transparent'}`}
             >
               <img
-                src={item.imageUrl || '/placeholder.jpg'}
+                src={menuItemImageUrl(item.id)}
                 alt={`${item.name} thumbnail`}
                 className="w-full h-full object-cover"
               />
@@ -142,7 +143,7 @@ export function CarouselItem({
       whileHover={{ scale: 1.1 }}
     >
       <img 
-        src={item.imageUrl || '/placeholder.jpg'} 
+        src={menuItemImageUrl(item.id)} 
         alt={item.name} 
         className="w-full h-full object-cover"
       />
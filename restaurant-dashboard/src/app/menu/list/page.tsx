@@ -18,7 +18,7 @@ import useMeasure from 'react-use-measure'
 import { Input } from "@/components/ui/input"
 import { useSpring, animated } from '@react-spring/web'
 import { Sidebar } from "@/components/sidebar" // Import Sidebar component
-import { getApiUrl } from "@/lib/api"
+import { getApiUrl, menuItemImageUrl } from "@/lib/api"
 
 export default function MenuListPage() {
   const router = useRouter()
@@ -48,15 +48,7 @@ export default function MenuListPage() {
 
       if (response.ok) {
         const data = await response.json()
-        const itemsWithImages = await Promise.all(data.map(async (item) => {
-          const imageResponse = await fetch(getApiUrl(`/menu-items/pexels/food-image?name=${encodeURIComponent(item.name)}`))
-          if (imageResponse.ok) {
-            const imageData = await imageResponse.json()
-            return { ...item, imageUrl: imageData.url }
-          }
-          return item
-        }))
-        setMenuItems(itemsWithImages)
+        setMenuItems(data)
       }
     } catch (error) {
       console.error('Failed to fetch menu items:', error)
@@ -366,7 +358,7 @@ export default function MenuListPage() {
                 >
                   <div className="w-[300px] h-[300px] rounded-full overflow-hidden">
                     <img
-                      src={item.imageUrl}
+                      src={menuItemImageUrl(item.id)}
                       alt={item.name}
                       className="w-full h-full object-cover"
                     />
@@ -398,7 +390,7 @@ export default function MenuListPage() {
                     index + Math.floor(activeIndex / 4) * 4 === activeIndex ? 'scale-105' : ''
                   }`}>
                     <img 
-                      src={item.imageUrl} 
+                      src={menuItemImageUrl(item.id)} 
                       alt={item.name} 
                       className="w-full h-full object-cover"
                     />
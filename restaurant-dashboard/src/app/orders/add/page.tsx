@@ -10,7 +10,7 @@ import { Select } from "@/components/ui/select"
 import { Textarea } from "@/components/ui/textarea"
 import { Button } from "@/components/ui/button"
 import { RiShoppingBag3Line, RiUserLine, RiMoneyDollarCircleLine, RiAddLine, RiSubtractLine } from "react-icons/ri"
-import { getApiUrl } from "@/lib/api"
+import { fetchAllPages, getApiUrl, menuItemImageUrl } from "@/lib/api"
 
 interface Customer {
   id: string;
@@ -19,6 +19,9 @@ interface Customer {
   active?: boolean;
 }
 
+// Largest page the customer list serves, to keep round trips down while loading the picker
+const CUSTOMER_PICKER_ENDPOINT = '/customers?size=200'
+
 // Update the MenuItem interface to include imageUrl
 interface MenuItem {
   id: string;
@@ -77,19 +80,14 @@ export default function AddOrderPage() {
       }
       const { id } = JSON.parse(adminData)
 
-      const response = await fetch(getApiUrl('/customers'), {
+      // The picker needs every customer, so follow the list's cursor to the last page
+      const data = await fetchAllPages<Customer>(CUSTOMER_PICKER_ENDPOINT, {
         headers: {
           "Content-Type": "application/json",
           "Admin-ID": id.toString()
         }
       })
-
-      if (response.ok) {
-        const data = await response.json()
-        setCustomers(data)
-      } else {
-        setError("Failed to fetch customers")
-      }
+      setCustomers(data)
     } catch (error) {
       console.error('Failed to fetch customers:', error)
       setError("Failed to load customers")
@@ -138,8 +136,8 @@ export default function AddOrderPage() {
       if (!adminData) return
       const { id } = JSON.parse(adminData)
 
-      const [customersRes, menuItemsRes] = await Promise.all([
-        fetch(getApiUrl('/customers'), {
+      const [customersData, menuItemsRes] = await Promise.all([
+        fetchAllPages<Customer>(CUSTOMER_PICKER_ENDPOINT, {
           headers: {
             "Content-Type": "application/json",
             "Admin-ID": id.toString()
@@ -154,26 +152,14 @@ export default function AddOrderPage() {
         })
       ])
 
-      if (customersRes.ok && menuItemsRes.ok) {
-        const customersData = await customersRes.json()
+      if (menuItemsRes.ok) {
         let menuItemsData = await menuItemsRes.json()
         
         if (!Array.isArray(menuItemsData)) {
           menuItemsData = [menuItemsData]
         }
 
-        menuItemsData = await Promise.all(menuItemsData.filter(item => item && item.name).map(async (item: MenuItem) => {
-          try {
-            const imageResponse = await fetch(getApiUrl(`/menu-items/pexels/food-image?name=${encodeURIComponent(item.name)}`))
-            if (imageResponse.ok) {
-              const imageData = await imageResponse.json()
-              return { ...item, imageUrl: imageData.url }
-            }
-          } catch (error) {
-            console.error('Failed to fetch image for', item.name, error)
-          }
-          return item
-        }))
+        menuItemsData = menuItemsData.filter((item: MenuItem) => item && item.name)
 
         setCustomers(customersData)
         setMenuItems(menuItemsData)
@@ -426,7 +412,7 @@ export default function AddOrderPage() {
                             whileTap={{ scale: 0.99 }}
                           >
                             <img
-                              src={item.imageUrl || '/placeholder-food.jpg'}
+                              src={menuItemImageUrl(item.id)}
                               alt={item.name || 'Menu Item'}
                               className="w-16 h-16 object-cover rounded-md"
                             />
@@ -7,7 +7,7 @@ import { Card, CardContent, CardHeader, CardTitle } from "@/components/ui/card"
 import { Button } from "@/components/ui/button"
 import { RiShoppingBag3Line, RiAddLine, RiEyeLine, RiEditLine, RiDeleteBinLine, RiPlayLine, RiCheckLine, RiCloseLine } from "react-icons/ri"
 import { motion } from "framer-motion"
-import { getApiUrl } from "@/lib/api"
+import { fetchPage, getApiUrl } from "@/lib/api"
 
 interface Order {
   id: string;
@@ -26,13 +26,16 @@ export default function OrderListPage() {
   const [orders, setOrders] = useState<Order[]>([])
   const [loading, setLoading] = useState(true)
   const [error, setError] = useState("")
+  const [nextCursor, setNextCursor] = useState<string | null>(null)
+  const [loadingMore, setLoadingMore] = useState(false)
 
   useEffect(() => {
     fetchOrders()
   }, [])
 
 
-  const fetchOrders = async () => {
+  // Without a cursor the list restarts from the newest order; with one the next page is appended
+  const fetchOrders = async (cursor?: string | null) => {
     try {
       const adminData = localStorage.getItem('adminData')
       if (!adminData) {
@@ -41,24 +44,24 @@ export default function OrderListPage() {
       }
       const { id } = JSON.parse(adminData)
 
-      const response = await fetch(getApiUrl(`/orders`), {
+      if (cursor) {
+        setLoadingMore(true)
+      }
+      const page = await fetchPage<Order>("/orders", {
         headers: {
           "Content-Type": "application/json",
           "Admin-ID": id.toString()
         }
-      })
+      }, cursor)
 
-      if (response.ok) {
-        const data = await response.json()
-        setOrders(data)
+      setOrders(previous => cursor ? [...previous, ...page.items] : page.items)
+      setNextCursor(page.nextCursor)
         setError("")
-      } else {
-        setError("Failed to fetch orders")
-      }
     } catch (error) {
-      setError("An error occurred while fetching orders")
+      setError("Failed to fetch orders")
     } finally {
       setLoading(false)
+      setLoadingMore(false)
     }
   }
 
@@ -392,6 +395,17 @@ export default function OrderListPage() {
                         ))
                       )}
                     </div>
+                    {nextCursor && !loading && (
+                      <div className="flex justify-center pt-4">
+                        <Button
+                          variant="outline"
+                          onClick={() => fetchOrders(nextCursor)}
+                          disabled={loadingMore}
+                        >
+                          {loadingMore ? "Loading..." : "Load more orders"}
+                        </Button>
+                      </div>
+                    )}
                   </CardContent>
                 </Card>
               </motion.div>
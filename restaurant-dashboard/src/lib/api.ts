@@ -14,4 +14,38 @@ export const getApiUrl = (endpoint: string) => {
   const url = API_BASE_URL + '/api' + normalizedEndpoint
   console.log('🔗 API Call URL:', url, '(API_BASE_URL:', API_BASE_URL, ', endpoint:', endpoint, ', normalized:', normalizedEndpoint, ')')
   return url
-}
\ No newline at end of file
+}
+
+// Menu thumbnails are generated and cached by the API, which fetches the source image itself
+export const menuItemImageUrl = (menuItemId: string) =>
+  `${API_URL}/menu-items/${encodeURIComponent(menuItemId)}/image`
+
+// List endpoints return one page as a plain array; the cursor for the next page comes in this header
+export const NEXT_CURSOR_HEADER = 'X-Next-Cursor'
+
+export interface Page<T> {
+  items: T[]
+  nextCursor: string | null
+}
+
+export const fetchPage = async <T>(endpoint: string, init: RequestInit, cursor?: string | null): Promise<Page<T>> => {
+  const separator = endpoint.includes('?') ? '&' : '?'
+  const url = getApiUrl(cursor ? `${endpoint}${separator}cursor=${encodeURIComponent(cursor)}` : endpoint)
+  const response = await fetch(url, init)
+  if (!response.ok) {
+    throw new Error(`Request to ${endpoint} failed with status ${response.status}`)
+  }
+  return { items: await response.json(), nextCursor: response.headers.get(NEXT_CURSOR_HEADER) }
+}
+
+// Follows the cursor to the last page, for pickers that need every row
+export const fetchAllPages = async <T>(endpoint: string, init: RequestInit): Promise<T[]> => {
+  const items: T[] = []
+  let cursor: string | null = null
+  do {
+    const page: Page<T> = await fetchPage<T>(endpoint, init, cursor)
+    items.push(...page.items)
+    cursor = page.nextCursor
+  } while (cursor)
+  return items
+}
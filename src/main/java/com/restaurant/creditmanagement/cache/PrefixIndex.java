@@ -0,0 +1,62 @@
+package com.restaurant.creditmanagement.cache;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * In-memory prefix index from string keys to ids. Keys are kept sorted, so every key that
+ * starts with a given prefix sits in one contiguous range and a lookup is a single range scan,
+ * the same answer a trie gives without a node per character.
+ */
+public class PrefixIndex {
+    private final NavigableMap<String, Set<String>> idsByKey = new TreeMap<>();
+    private final Map<String, Set<String>> keysById = new HashMap<>();
+
+    /** Indexes {@code id} under {@code keys}, replacing whatever keys it had before. */
+    public synchronized void put(String id, Collection<String> keys) {
+        remove(id);
+        Set<String> ownKeys = new HashSet<>();
+        for (String key : keys) {
+            if (key == null || key.isEmpty()) {
+                continue;
+            }
+            ownKeys.add(key);
+            idsByKey.computeIfAbsent(key, k -> new HashSet<>()).add(id);
+        }
+        keysById.put(id, ownKeys);
+    }
+
+    public synchronized void remove(String id) {
+        Set<String> keys = keysById.remove(id);
+        if (keys == null) {
+            return;
+        }
+        for (String key : keys) {
+            Set<String> ids = idsByKey.get(key);
+            if (ids != null) {
+                ids.remove(id);
+                if (ids.isEmpty()) {
+                    idsByKey.remove(key);
+                }
+            }
+        }
+    }
+
+    /** Ids with at least one key starting with {@code prefix}. */
+    public synchronized Set<String> findByPrefix(String prefix) {
+        Set<String> result = new HashSet<>();
+        for (Set<String> ids : idsByKey.subMap(prefix, true, prefix + Character.MAX_VALUE, false).values()) {
+            result.addAll(ids);
+        }
+        return result;
+    }
+
+    public synchronized int size() {
+        return keysById.size();
+    }
+}
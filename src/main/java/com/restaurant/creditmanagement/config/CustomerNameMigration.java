@@ -0,0 +1,71 @@
+package com.restaurant.creditmanagement.config;
+
+import com.restaurant.creditmanagement.model.Customer;
+import com.restaurant.creditmanagement.service.CustomerSearchService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.util.CloseableIterator;
+import org.springframework.stereotype.Component;
+
+/**
+ * Fills in normalizedName for customers written before name search used it. Accent stripping
+ * has no aggregation equivalent, so names are normalized here and written back in unordered
+ * bulk batches. Only customers without the field are touched, so later runs do nothing.
+ */
+@Component
+public class CustomerNameMigration {
+    private static final Logger logger = LoggerFactory.getLogger(CustomerNameMigration.class);
+    private static final int BATCH_SIZE = 500;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Value("${app.migrations.customer-names.enabled:true}")
+    private boolean enabled;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrate() {
+        if (!enabled) {
+            return;
+        }
+        Query missing = Query.query(Criteria.where("normalizedName").exists(false));
+        missing.fields().include("name");
+
+        long updated = 0;
+        try (CloseableIterator<Customer> customers = mongoTemplate.stream(missing, Customer.class)) {
+            BulkOperations bulk = null;
+            int pending = 0;
+            while (customers.hasNext()) {
+                Customer customer = customers.next();
+                if (bulk == null) {
+                    bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Customer.class);
+                }
+                bulk.updateOne(Query.query(Criteria.where("id").is(customer.getId())),
+                        new Update().set("normalizedName", CustomerSearchService.normalizeName(customer.getName())));
+                if (++pending == BATCH_SIZE) {
+                    updated += bulk.execute().getModifiedCount();
+                    bulk = null;
+                    pending = 0;
+                }
+            }
+            if (bulk != null) {
+                updated += bulk.execute().getModifiedCount();
+            }
+        } catch (Exception e) {
+            logger.error("Customer name migration failed: {}", e.getMessage(), e);
+        }
+
+        if (updated > 0) {
+            logger.info("Normalized names for {} customers", updated);
+        }
+    }
+}
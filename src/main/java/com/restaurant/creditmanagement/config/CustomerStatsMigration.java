@@ -0,0 +1,61 @@
+package com.restaurant.creditmanagement.config;
+
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Updates;
+import com.mongodb.client.result.UpdateResult;
+import com.restaurant.creditmanagement.model.Customer;
+import com.restaurant.creditmanagement.repository.CustomerRepository;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Moves customers from the old embedded orderIds/transactionIds arrays to the running stats
+ * fields. The arrays are dropped and every admin with a customer still missing its counters
+ * has its stats rebuilt from the orders and transactions, without resetting anything first,
+ * so increments from orders placed meanwhile are kept. Both steps are no-ops once done.
+ */
+@Component
+public class CustomerStatsMigration {
+    private static final Logger logger = LoggerFactory.getLogger(CustomerStatsMigration.class);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Value("${app.migrations.customer-stats.enabled:true}")
+    private boolean enabled;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrate() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            MongoCollection<Document> customers = mongoTemplate.getCollection(mongoTemplate.getCollectionName(Customer.class));
+
+            UpdateResult result = customers.updateMany(
+                    Filters.or(Filters.exists("orderIds"), Filters.exists("transactionIds")),
+                    Updates.combine(Updates.unset("orderIds"), Updates.unset("transactionIds")));
+            if (result.getModifiedCount() > 0) {
+                logger.info("Dropped embedded order/transaction ids from {} customers", result.getModifiedCount());
+            }
+
+            for (String adminId : customers.distinct("adminId", Filters.exists("orderCount", false), String.class)) {
+                customerRepository.rebuildStats(adminId);
+                logger.info("Rebuilt customer order and settlement stats for admin {}", adminId);
+            }
+        } catch (Exception e) {
+            logger.error("Customer stats migration failed: {}", e.getMessage(), e);
+        }
+    }
+}
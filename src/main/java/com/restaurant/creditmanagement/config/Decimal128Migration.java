@@ -0,0 +1,72 @@
+package com.restaurant.creditmanagement.config;
+
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.result.UpdateResult;
+import com.restaurant.creditmanagement.model.Customer;
+import com.restaurant.creditmanagement.model.MenuItem;
+import com.restaurant.creditmanagement.model.Order;
+import com.restaurant.creditmanagement.model.OrderItem;
+import com.restaurant.creditmanagement.model.Transaction;
+import org.bson.BsonType;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.Collections;
+
+/**
+ * Converts money fields that older versions stored as strings to Decimal128. Each field is
+ * rewritten server-side with a pipeline update that only matches string values, so the
+ * migration is idempotent. It runs while the context starts, before the web server takes
+ * requests: a string totalCredit compares above every number, so the credit checks can't be
+ * trusted until it's done.
+ */
+@Component
+public class Decimal128Migration {
+    private static final Logger logger = LoggerFactory.getLogger(Decimal128Migration.class);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Value("${app.migrations.decimal128.enabled:true}")
+    private boolean enabled;
+
+    @PostConstruct
+    public void migrate() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            convert(Order.class, "totalAmount");
+            convert(Order.class, "tax");
+            convert(OrderItem.class, "unitPrice");
+            convert(Customer.class, "creditBalance");
+            convert(Customer.class, "totalCredit");
+            convert(Transaction.class, "amount");
+            convert(MenuItem.class, "price");
+        } catch (Exception e) {
+            logger.error("Decimal128 migration failed: {}", e.getMessage(), e);
+        }
+    }
+
+    private void convert(Class<?> type, String field) {
+        String collection = mongoTemplate.getCollectionName(type);
+        // Unparseable values are left as they are rather than failing the whole update
+        Document toDecimal = new Document("$convert", new Document("input", "$" + field)
+                .append("to", "decimal")
+                .append("onError", "$" + field));
+
+        UpdateResult result = mongoTemplate.getCollection(collection).updateMany(
+                Filters.type(field, BsonType.STRING),
+                Collections.singletonList(new Document("$set", new Document(field, toDecimal))));
+
+        if (result.getModifiedCount() > 0) {
+            logger.info("Converted {} {}.{} values to Decimal128", result.getModifiedCount(), collection, field);
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.restaurant.creditmanagement.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.Locale;
+
+/**
+ * Where new orders keep their lines: {@code embedded} (the default) writes them into the order
+ * document, {@code collection} keeps the old order_items documents. Readers handle both shapes,
+ * so orders written in either mode stay readable; the mode picks how new orders are written and
+ * how the item reports are computed. Embedded mode migrates existing orders and drops their
+ * order_items, so a tree can't go back to collection mode after that.
+ */
+@Component
+public class OrderLineStorage {
+
+    @Value("${app.orders.line-storage:embedded}")
+    private String mode;
+
+    private boolean embedded;
+
+    @PostConstruct
+    void init() {
+        String value = mode.trim().toLowerCase(Locale.ROOT);
+        if (!"embedded".equals(value) && !"collection".equals(value)) {
+            throw new IllegalStateException("app.orders.line-storage must be embedded or collection, not " + mode);
+        }
+        embedded = "embedded".equals(value);
+    }
+
+    public boolean isEmbedded() {
+        return embedded;
+    }
+}
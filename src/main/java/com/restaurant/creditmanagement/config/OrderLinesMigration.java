@@ -0,0 +1,133 @@
+package com.restaurant.creditmanagement.config;
+
+import com.restaurant.creditmanagement.model.Order;
+import com.restaurant.creditmanagement.model.OrderItem;
+import com.restaurant.creditmanagement.model.OrderLine;
+import com.restaurant.creditmanagement.service.OrderLineService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.util.CloseableIterator;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Copies order_items into the lines embedded in their orders, for orders that don't have them
+ * yet. Runs in embedded mode only, in the background, a batch of orders at a time. An order is
+ * only written if it still has no lines and the version it was read with, so an order edited
+ * meanwhile is skipped, and skipped orders are retried in another pass until none are left.
+ * <p>
+ * Once an order has its lines, its order_items and orderItemIds are removed: edits only touch
+ * the embedded lines, so the copies would go stale. Switching a migrated tree back to collection
+ * mode is not supported.
+ */
+@Component
+public class OrderLinesMigration {
+    private static final Logger logger = LoggerFactory.getLogger(OrderLinesMigration.class);
+    private static final int BATCH_SIZE = 500;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private OrderLineService orderLineService;
+
+    @Autowired
+    private OrderLineStorage orderLineStorage;
+
+    @Value("${app.migrations.order-lines.enabled:true}")
+    private boolean enabled;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrate() {
+        if (!enabled || !orderLineStorage.isEmbedded()) {
+            return;
+        }
+        Thread migration = new Thread(this::embedLines, "order-lines-migration");
+        migration.setDaemon(true);
+        migration.start();
+    }
+
+    private void embedLines() {
+        try {
+            long migrated = 0;
+            long pass;
+            do {
+                pass = forEachBatch(Criteria.where("lines").exists(false), this::writeLines);
+                migrated += pass;
+            } while (pass > 0 && mongoTemplate.exists(Query.query(Criteria.where("lines").exists(false)), Order.class));
+            if (migrated > 0) {
+                logger.info("Embedded order lines into {} orders", migrated);
+            }
+
+            long cleaned = forEachBatch(Criteria.where("lines").exists(true).and("orderItemIds").exists(true),
+                    this::dropOrderItems);
+            if (cleaned > 0) {
+                logger.info("Removed order_items of {} migrated orders", cleaned);
+            }
+        } catch (Exception e) {
+            logger.error("Order lines migration failed: {}", e.getMessage(), e);
+        }
+    }
+
+    private long forEachBatch(Criteria criteria, Function<List<Order>, Long> handler) {
+        Query query = Query.query(criteria).cursorBatchSize(BATCH_SIZE);
+        query.fields().include("adminId", "totalAmount", "version");
+
+        long handled = 0;
+        List<Order> batch = new ArrayList<>(BATCH_SIZE);
+        try (CloseableIterator<Order> orders = mongoTemplate.stream(query, Order.class)) {
+            while (orders.hasNext()) {
+                batch.add(orders.next());
+                if (batch.size() == BATCH_SIZE) {
+                    handled += handler.apply(batch);
+                    batch.clear();
+                }
+            }
+        }
+        return handled + handler.apply(batch);
+    }
+
+    private long writeLines(List<Order> orders) {
+        if (orders.isEmpty()) {
+            return 0;
+        }
+        Map<String, List<OrderLine>> linesByOrder = orderLineService.linesOf(orders);
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Order.class);
+        for (Order order : orders) {
+            bulk.updateOne(Query.query(Criteria.where("id").is(order.getId())
+                            .and("lines").exists(false)
+                            .and("version").is(order.getVersion())),
+                    // Bumping the version fails any edit that read the order before its lines moved
+                    new Update().set("lines", linesByOrder.get(order.getId()))
+                            .set("version", order.getVersion() != null ? order.getVersion() + 1 : 1L));
+        }
+        return bulk.execute().getModifiedCount();
+    }
+
+    // Items first, so an interrupted run leaves orderItemIds behind and the next run finishes the order
+    private long dropOrderItems(List<Order> orders) {
+        if (orders.isEmpty()) {
+            return 0;
+        }
+        List<String> orderIds = new ArrayList<>(orders.size());
+        for (Order order : orders) {
+            orderIds.add(order.getId());
+        }
+        mongoTemplate.remove(Query.query(Criteria.where("orderId").in(orderIds)), OrderItem.class);
+        return mongoTemplate.updateMulti(Query.query(Criteria.where("id").in(orderIds).and("lines").exists(true)),
+                new Update().unset("orderItemIds"), Order.class).getModifiedCount();
+    }
+}
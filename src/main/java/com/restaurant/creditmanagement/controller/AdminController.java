@@ -4,6 +4,7 @@ import com.restaurant.creditmanagement.model.Admin;
 import com.restaurant.creditmanagement.repository.AdminRepository;
 import com.restaurant.creditmanagement.repository.CustomerRepository;
 import com.restaurant.creditmanagement.service.AdminService;
+import com.restaurant.creditmanagement.service.CustomerSegmentation;
 import com.restaurant.creditmanagement.service.CustomerService;
 import com.restaurant.creditmanagement.service.DashboardService;
 import com.restaurant.creditmanagement.service.OrderService;
@@ -161,4 +162,33 @@ public class AdminController {
                 .body(Collections.singletonMap("error", "Failed to update admin settings: " + e.getMessage()));
         }
     }
-}
\ No newline at end of file
+
+    @GetMapping("/admin/{id}/segmentation")
+    public ResponseEntity<?> getSegmentation(@PathVariable String id) {
+        CustomerSegmentation segmentation = adminService.getSegmentation(id);
+        Map<String, Object> response = new HashMap<>();
+        response.put("loyaltyThresholds", segmentation.getLoyaltyThresholds());
+        response.put("frequencyThresholds", segmentation.getFrequencyThresholds());
+        return ResponseEntity.ok(response);
+    }
+
+    @PutMapping("/admin/{id}/segmentation")
+    public ResponseEntity<?> updateSegmentation(
+            @PathVariable String id,
+            @RequestBody Admin adminDetails) {
+        try {
+            Admin updatedAdmin = adminService.updateSegmentation(id,
+                    adminDetails.getLoyaltyThresholds(), adminDetails.getFrequencyThresholds());
+            Map<String, Object> response = new HashMap<>();
+            response.put("loyaltyThresholds", updatedAdmin.getLoyaltyThresholds());
+            response.put("frequencyThresholds", updatedAdmin.getFrequencyThresholds());
+            response.put("message", "Segmentation updated successfully");
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Collections.singletonMap("error", e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(Collections.singletonMap("error", "Failed to update segmentation: " + e.getMessage()));
+        }
+    }
+}
@@ -1,13 +1,17 @@
 package com.restaurant.creditmanagement.controller;
 
+import com.restaurant.creditmanagement.dto.CursorPage;
+import com.restaurant.creditmanagement.dto.CustomerSort;
+import com.restaurant.creditmanagement.dto.CustomerSuggestion;
+import com.restaurant.creditmanagement.dto.CustomerSummary;
+import com.restaurant.creditmanagement.dto.DataFormat;
+import com.restaurant.creditmanagement.dto.PageCursor;
 import com.restaurant.creditmanagement.model.Customer;
 import com.restaurant.creditmanagement.model.Transaction;
 import com.restaurant.creditmanagement.repository.CustomerRepository;
-import com.restaurant.creditmanagement.repository.TransactionRepository;
+import com.restaurant.creditmanagement.service.BulkImportService;
+import com.restaurant.creditmanagement.service.CustomerSearchService;
 import com.restaurant.creditmanagement.service.CustomerService;
-// Add this import at the top with other imports
-import com.restaurant.creditmanagement.model.TransactionType;
-import java.time.LocalDateTime;
 import com.restaurant.creditmanagement.service.TransactionService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
@@ -18,6 +22,7 @@ import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
 import javax.servlet.http.HttpSession;
+import java.io.InputStream;
 import java.math.BigDecimal;
 import java.util.List;
 import java.util.Optional;
@@ -26,6 +31,8 @@ import java.util.Optional;
 @RequestMapping("/api/customers")
 @CrossOrigin(origins = {"http://localhost:3000", "https://credit-management-system.vercel.app"})
 public class CustomerController {
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 200;
 
     @Autowired
     private CustomerRepository customerRepository;
@@ -34,18 +41,32 @@ public class CustomerController {
     private CustomerService customerService;
 
     @Autowired
-    private TransactionRepository transactionRepository;
+    private TransactionService transactionService;  // Add this field
 
     @Autowired
-    private TransactionService transactionService;  // Add this field
+    private BulkImportService bulkImportService;
 
 
 
     @GetMapping
-    public ResponseEntity<List<Customer>> listCustomers(@RequestHeader("Admin-ID") String adminIdStr) {
+    public ResponseEntity<?> listCustomers(@RequestHeader("Admin-ID") String adminIdStr,
+                                           @RequestParam(required = false) String cursor,
+                                           @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int size,
+                                           @RequestParam(required = false) String sort,
+                                           @RequestParam(defaultValue = "false") boolean outstanding) {
         try {
-            List<Customer> customers = customerService.getAllCustomers(adminIdStr);
-            return ResponseEntity.ok(customers);
+            int pageSize = Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+            CursorPage<CustomerSummary> page = customerService.getCustomerPage(adminIdStr,
+                    CustomerSort.fromParam(sort), outstanding, PageCursor.decode(cursor), pageSize);
+
+            // Same contract as the order list: a plain array, next cursor in a header
+            ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+            if (page.getNextCursor() != null) {
+                response.header(OrderController.NEXT_CURSOR_HEADER, page.getNextCursor());
+            }
+            return response.body(page.getItems());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
@@ -66,6 +87,19 @@ public class CustomerController {
         }
     }
 
+    // CSV with a header row, or NDJSON; see CustomerImportRow for the fields
+    @PostMapping("/import")
+    public ResponseEntity<?> importCustomers(@RequestHeader("Admin-ID") String adminIdStr,
+                                             @RequestParam(defaultValue = "csv") String format,
+                                             InputStream body) {
+        try {
+            return ResponseEntity.ok(bulkImportService.importCustomers(adminIdStr, DataFormat.fromParam(format), body));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body("Failed to import customers: " + e.getMessage());
+        }
+    }
+
     @DeleteMapping("/{id}/delete")
     public ResponseEntity<?> deleteCustomer(@PathVariable String id) {
         try {
@@ -79,15 +113,32 @@ public class CustomerController {
 
     @GetMapping("/search")
     public ResponseEntity<List<Customer>> searchCustomers(@RequestParam String query,
+                                                         @RequestParam(defaultValue = "" + CustomerSearchService.DEFAULT_LIMIT) int limit,
                                                          @RequestHeader("Admin-ID") String adminIdStr) {
         try {
-            List<Customer> customers = customerService.searchCustomers(query, adminIdStr);
+            List<Customer> customers = customerService.searchCustomers(query, adminIdStr, clampLimit(limit));
             return ResponseEntity.ok(customers);
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
     }
 
+    // Name/phone/email suggestions for the search box, answered from the in-memory index
+    @GetMapping("/autocomplete")
+    public ResponseEntity<List<CustomerSuggestion>> autocompleteCustomers(@RequestParam String query,
+                                                                          @RequestParam(defaultValue = "10") int limit,
+                                                                          @RequestHeader("Admin-ID") String adminIdStr) {
+        try {
+            return ResponseEntity.ok(customerService.autocompleteCustomers(query, adminIdStr, clampLimit(limit)));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    private static int clampLimit(int limit) {
+        return Math.min(Math.max(limit, 1), CustomerSearchService.MAX_LIMIT);
+    }
+
     
 
     
@@ -110,28 +161,13 @@ public class CustomerController {
                                            @RequestBody Customer customer,
                                            @RequestHeader("Admin-ID") String adminIdStr) {
         try {
-            Optional<Customer> existingCustomerOpt = customerService.getCustomerById(id, adminIdStr);
-
-            if (!existingCustomerOpt.isPresent()) {
+            Optional<Customer> updatedCustomer = customerService.updateCustomer(id, customer, adminIdStr);
+            if (!updatedCustomer.isPresent()) {
                 return ResponseEntity.notFound().build();
             }
-
-            Customer existingCustomer = existingCustomerOpt.get();
-            existingCustomer.setName(customer.getName());
-            existingCustomer.setPhone(customer.getPhone());
-            existingCustomer.setEmail(customer.getEmail());
-            existingCustomer.setAddress(customer.getAddress());
-
-            if (customer.getTotalCredit() != null) {
-                if (customer.getTotalCredit().compareTo(existingCustomer.getCreditBalance()) < 0) {
-                    return ResponseEntity.badRequest()
-                            .body("New credit limit cannot be less than current balance");
-                }
-                existingCustomer.setTotalCredit(customer.getTotalCredit());
-            }
-
-            Customer updatedCustomer = customerService.updateCustomer(existingCustomer, adminIdStr);
-            return ResponseEntity.ok(updatedCustomer);
+            return ResponseEntity.ok(updatedCustomer.get());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body("Failed to update customer: " + e.getMessage());
@@ -139,46 +175,21 @@ public class CustomerController {
     }
 
     @PostMapping("/{id}/settle")
-        public ResponseEntity<?> settleBalance(
-                @PathVariable String id,
-                @RequestBody Transaction transaction,
-                @RequestHeader("Admin-ID") String adminIdStr) {
-            try {
-                Optional<Customer> customerOpt = customerService.getCustomerById(id, adminIdStr);
-
-                if (!customerOpt.isPresent()) {
-                    return ResponseEntity.notFound().build();
-                }
-
-                Customer customer = customerOpt.get();
-                BigDecimal settlementAmount = transaction.getAmount();
-
-                // Validate settlement amount
-                if (settlementAmount.compareTo(BigDecimal.ZERO) <= 0 ||
-                    settlementAmount.compareTo(customer.getCreditBalance()) > 0) {
-                    return ResponseEntity.badRequest()
-                        .body("Invalid settlement amount");
-                }
-
-                // Set transaction details
-                transaction.setCustomerId(id);
-                transaction.setType(TransactionType.SETTLEMENT.toString());
-                transaction.setStatus("COMPLETED");
-                transaction.setTransactionDate(LocalDateTime.now());
-                transaction.setAdminId(adminIdStr);
-
-                // Update customer balance
-                BigDecimal newBalance = customer.getCreditBalance().subtract(settlementAmount);
-                customer.setCreditBalance(newBalance);
-
-                // Save transaction and update customer
-                transactionRepository.save(transaction);
-                Customer updatedCustomer = customerService.updateCustomer(customer, adminIdStr);
-
-                return ResponseEntity.ok(updatedCustomer);
-            } catch (Exception e) {
-                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                        .body("Failed to settle balance: " + e.getMessage());
-            }
+    public ResponseEntity<?> settleBalance(
+            @PathVariable String id,
+            @RequestBody Transaction transaction,
+            @RequestHeader("Admin-ID") String adminIdStr,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+        try {
+            String key = idempotencyKey != null ? idempotencyKey : transaction.getIdempotencyKey();
+            Optional<Customer> customer = customerService.settleBalance(id, adminIdStr, transaction, key);
+            return customer.map(ResponseEntity::ok)
+                    .orElse(ResponseEntity.notFound().build());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Failed to settle balance: " + e.getMessage());
         }
-}
\ No newline at end of file
+    }
+}
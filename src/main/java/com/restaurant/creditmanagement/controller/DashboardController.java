@@ -1,14 +1,14 @@
 package com.restaurant.creditmanagement.controller;
 
-import com.restaurant.creditmanagement.model.Customer;
+import com.restaurant.creditmanagement.model.AdminStats;
 import com.restaurant.creditmanagement.model.Order;
+import com.restaurant.creditmanagement.service.AdminStatsService;
 import com.restaurant.creditmanagement.service.CustomerService;
 import com.restaurant.creditmanagement.service.OrderService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.List;
@@ -25,24 +25,17 @@ public class DashboardController {
     @Autowired
     private CustomerService customerService;
 
+    @Autowired
+    private AdminStatsService adminStatsService;
+
     @GetMapping("/dashboard/{adminId}")
     public ResponseEntity<?> getDashboardStats(@PathVariable String adminId) {
         try {
-            // Get all customers for this admin
-            List<Customer> customers = customerService.getAllCustomers(adminId);
-
-            // Calculate total revenue
-            BigDecimal totalRevenue = orderService.calculateTotalRevenue(adminId);
-
-            // Calculate total outstanding credit
-            BigDecimal totalCreditBalance = customers.stream()
-                    .map(Customer::getCreditBalance)
-                    .filter(balance -> balance.compareTo(BigDecimal.ZERO) > 0)
-                    .reduce(BigDecimal.ZERO, BigDecimal::add);
+            // Revenue, order/customer counts and outstanding credit are maintained incrementally
+            AdminStats stats = adminStatsService.getStats(adminId);
 
             // Get recent customers (last 5 customers)
-            List<Map<String, Object>> recentCustomers = customers.stream()
-                .limit(5)
+            List<Map<String, Object>> recentCustomers = customerService.getRecentCustomers(adminId).stream()
                 .map(customer -> {
                     Map<String, Object> customerMap = new HashMap<>();
                     customerMap.put("id", customer.getId());
@@ -57,6 +50,8 @@ public class DashboardController {
 
             // Get recent orders with customer information
             List<Order> recentOrders = orderService.getRecentOrders(adminId);
+            Map<String, String> customerNames = customerService.getCustomerNames(adminId,
+                    recentOrders.stream().map(Order::getCustomerId).collect(Collectors.toSet()));
             List<Map<String, Object>> recentOrdersWithCustomer = recentOrders.stream()
                 .map(order -> {
                     Map<String, Object> orderMap = new HashMap<>();
@@ -67,23 +62,9 @@ public class DashboardController {
                     orderMap.put("paymentMethod", order.getPaymentMethod());
 
                     // Add customer information
-                    try {
-                        Customer customer = customerService.getCustomerById(order.getCustomerId(), adminId)
-                                .orElse(null);
-                        if (customer != null) {
-                            Map<String, Object> customerInfo = new HashMap<>();
-                            customerInfo.put("name", customer.getName());
-                            orderMap.put("customer", customerInfo);
-                        } else {
-                            Map<String, Object> customerInfo = new HashMap<>();
-                            customerInfo.put("name", "Unknown Customer");
-                            orderMap.put("customer", customerInfo);
-                        }
-                    } catch (Exception e) {
-                        Map<String, Object> customerInfo = new HashMap<>();
-                        customerInfo.put("name", "Unknown Customer");
-                        orderMap.put("customer", customerInfo);
-                    }
+                    Map<String, Object> customerInfo = new HashMap<>();
+                    customerInfo.put("name", customerNames.getOrDefault(order.getCustomerId(), "Unknown Customer"));
+                    orderMap.put("customer", customerInfo);
 
                     return orderMap;
                 })
@@ -91,10 +72,10 @@ public class DashboardController {
 
             // Create response object
             Map<String, Object> response = new HashMap<>();
-            response.put("revenue", totalRevenue);
-            response.put("orders", orderService.getTotalOrderCount(adminId));
-            response.put("customers", customers.size());
-            response.put("creditBalance", totalCreditBalance);
+            response.put("revenue", stats.getRevenue());
+            response.put("orders", stats.getOrderCount());
+            response.put("customers", stats.getCustomerCount());
+            response.put("creditBalance", stats.getOutstandingCredit());
             response.put("recentOrders", recentOrdersWithCustomer);
             response.put("recentCustomers", recentCustomers);
 
@@ -0,0 +1,113 @@
+package com.restaurant.creditmanagement.controller;
+
+import com.restaurant.creditmanagement.dto.DataFormat;
+import com.restaurant.creditmanagement.service.ExportService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Streaming exports for accounting. The response is written on an async thread straight from
+ * the Mongo cursor, so a large export neither holds a request thread for its whole duration
+ * nor builds the rows in memory first.
+ */
+@RestController
+@RequestMapping("/api/exports")
+@CrossOrigin(origins = {"http://localhost:3000", "https://credit-management-system.vercel.app"})
+public class ExportController {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    @Autowired
+    private ExportService exportService;
+
+    @GetMapping("/orders")
+    public ResponseEntity<StreamingResponseBody> exportOrders(@RequestHeader("Admin-ID") String adminId,
+                                                              @RequestParam(defaultValue = "csv") String format,
+                                                              @RequestParam(defaultValue = "false") boolean gzip,
+                                                              @RequestParam(required = false)
+                                                              @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                                              @RequestParam(required = false)
+                                                              @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        return export("orders", format, gzip, from, to,
+                (exportFormat, out) -> exportService.exportOrders(adminId, from, to, exportFormat, out));
+    }
+
+    @GetMapping("/order-items")
+    public ResponseEntity<StreamingResponseBody> exportOrderItems(@RequestHeader("Admin-ID") String adminId,
+                                                                  @RequestParam(defaultValue = "csv") String format,
+                                                                  @RequestParam(defaultValue = "false") boolean gzip,
+                                                                  @RequestParam(required = false)
+                                                                  @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                                                  @RequestParam(required = false)
+                                                                  @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        return export("order-items", format, gzip, from, to,
+                (exportFormat, out) -> exportService.exportOrderItems(adminId, from, to, exportFormat, out));
+    }
+
+    @GetMapping("/transactions")
+    public ResponseEntity<StreamingResponseBody> exportTransactions(@RequestHeader("Admin-ID") String adminId,
+                                                                    @RequestParam(defaultValue = "csv") String format,
+                                                                    @RequestParam(defaultValue = "false") boolean gzip,
+                                                                    @RequestParam(required = false)
+                                                                    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                                                    @RequestParam(required = false)
+                                                                    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        return export("transactions", format, gzip, from, to,
+                (exportFormat, out) -> exportService.exportTransactions(adminId, from, to, exportFormat, out));
+    }
+
+    private interface FormattedExport {
+        void writeTo(DataFormat format, OutputStream out) throws IOException;
+    }
+
+    // Validates before anything is streamed, so bad parameters still get a plain 400
+    private ResponseEntity<StreamingResponseBody> export(String name, String format, boolean gzip,
+                                                         LocalDateTime from, LocalDateTime to,
+                                                         FormattedExport export) {
+        DataFormat exportFormat;
+        try {
+            exportFormat = DataFormat.fromParam(format);
+        } catch (IllegalArgumentException e) {
+            return badRequest(e.getMessage());
+        }
+        if (from != null && to != null && !from.isBefore(to)) {
+            return badRequest("from must be before to");
+        }
+
+        // A gzip export is a .gz file download, not a compressed transfer of the CSV/NDJSON
+        String filename = name + "-" + LocalDate.now() + "." + exportFormat.getExtension() + (gzip ? ".gz" : "");
+        StreamingResponseBody body = out -> {
+            OutputStream target = gzip ? new GZIPOutputStream(out, BUFFER_SIZE) : out;
+            try (OutputStream buffered = new BufferedOutputStream(target, BUFFER_SIZE)) {
+                export.writeTo(exportFormat, buffered);
+            }
+        };
+
+        return ResponseEntity.ok()
+                .contentType(gzip ? MediaType.parseMediaType("application/gzip")
+                        : MediaType.parseMediaType(exportFormat.getContentType() + ";charset=UTF-8"))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename(filename).build().toString())
+                .body(body);
+    }
+
+    // The return type has to stay StreamingResponseBody for Spring to stream it, errors included
+    private static ResponseEntity<StreamingResponseBody> badRequest(String message) {
+        return ResponseEntity.badRequest()
+                .contentType(MediaType.TEXT_PLAIN)
+                .body(out -> out.write(message.getBytes(StandardCharsets.UTF_8)));
+    }
+}
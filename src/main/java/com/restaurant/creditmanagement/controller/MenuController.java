@@ -1,20 +1,32 @@
 package com.restaurant.creditmanagement.controller;
 
+import com.restaurant.creditmanagement.dto.DataFormat;
 import com.restaurant.creditmanagement.model.MenuItem;
+import com.restaurant.creditmanagement.service.BulkImportService;
+import com.restaurant.creditmanagement.service.MenuImageEnrichmentService;
+import com.restaurant.creditmanagement.service.MenuImageStore;
 import com.restaurant.creditmanagement.service.MenuItemService;
+import com.restaurant.creditmanagement.service.MenuSnapshotService;
+import com.restaurant.creditmanagement.service.PexelsService;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.*;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
-import org.springframework.web.client.RestTemplate;
 import org.springframework.web.multipart.MultipartFile;
+import reactor.core.publisher.Mono;
 
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 import javax.servlet.http.HttpSession;
-import java.net.URLEncoder;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardOpenOption;
 import java.util.Collections;
-import java.util.List;
 import java.util.Map;
 
 @RestController
@@ -22,12 +34,28 @@ import java.util.Map;
 @CrossOrigin(origins = {"http://localhost:3000", "https://credit-management-system.vercel.app"})
 public class MenuController {
     
-    @Value("${pexels.api.key}")
-    private String pexelsApiKey;
+    // Thumbnails change only when the item's image does, and clients revalidate with the ETag
+    private static final String IMAGE_CACHE_CONTROL = "public, max-age=604800";
+    private static final String NO_IMAGE_FOUND_URL = "https://via.placeholder.com/400x300?text=No+Image+Found";
 
     @Autowired
     private MenuItemService menuItemService;
 
+    @Autowired
+    private BulkImportService bulkImportService;
+
+    @Autowired
+    private MenuImageEnrichmentService imageEnrichmentService;
+
+    @Autowired
+    private PexelsService pexelsService;
+
+    @Autowired
+    private MenuImageStore menuImageStore;
+
+    @Autowired
+    private MenuSnapshotService menuSnapshotService;
+
     @PostMapping("/add")  // This will now map to /api/menu-items/add
     public ResponseEntity<?> addMenuItem(@RequestBody MenuItem menuItem) {
         try {
@@ -47,9 +75,26 @@ public class MenuController {
         }
     }
 
+    // CSV with a header row, or NDJSON; see MenuItemImportRow for the fields
+    @PostMapping("/import")
+    public ResponseEntity<?> importMenuItems(@RequestHeader("Admin-ID") String adminId,
+                                             @RequestParam(defaultValue = "csv") String format,
+                                             InputStream body) {
+        try {
+            return ResponseEntity.ok(bulkImportService.importMenuItems(adminId, DataFormat.fromParam(format), body));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Collections.singletonMap("error", e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(
+                    Collections.singletonMap("error", "Failed to import menu items: " + e.getMessage())
+            );
+        }
+    }
+
     @GetMapping("/list")
     public ResponseEntity<?> getMenuList(@RequestHeader("Authorization") String authHeader,
-                                         @RequestHeader("Admin-ID") String adminId) {
+                                         @RequestHeader("Admin-ID") String adminId,
+                                         @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         try {
             // Validate token format
             if (authHeader == null || !authHeader.startsWith("Bearer ")) {
@@ -58,8 +103,7 @@ public class MenuController {
                 );
             }
 
-            List<MenuItem> menuItems = menuItemService.getAllMenuItems(adminId);
-            return ResponseEntity.ok(menuItems != null ? menuItems : Collections.emptyList());
+            return menuSnapshotResponse(adminId, ifNoneMatch);
         } catch (NumberFormatException e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(
                     Collections.singletonMap("error", "Invalid Admin ID format")
@@ -71,49 +115,47 @@ public class MenuController {
         }
     }
 
+    // Prebuilt JSON for the current menu version, or 304 when the client already has it
+    private ResponseEntity<?> menuSnapshotResponse(String adminId, String ifNoneMatch) {
+        long version = menuSnapshotService.getVersion(adminId);
+        String etag = menuSnapshotService.etagFor(adminId, version);
+        if (ifNoneMatch != null && ifNoneMatch.contains(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(etag)
+                    .cacheControl(CacheControl.noCache())
+                    .build();
+        }
+
+        MenuSnapshotService.MenuSnapshot snapshot = menuSnapshotService.getSnapshot(adminId, version);
+        return ResponseEntity.ok()
+                .eTag(snapshot.getEtag())
+                .cacheControl(CacheControl.noCache())
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(snapshot.getBody());
+    }
+
     // Remove the extractAdminIdFromToken method as we're now using the Admin-ID header
 
+    // Served from PexelsService's shared cache; concurrent lookups for one dish share a single call
     @GetMapping("/pexels/food-image")
-    public ResponseEntity<?> getFoodImage(@RequestParam String name) {
-        try {
-            String pexelsUrl = "https://api.pexels.com/v1/search?query=" + 
-                              URLEncoder.encode(name + " food", "UTF-8") +
-                              "&per_page=1";
-
-            HttpHeaders headers = new HttpHeaders();
-            headers.set("Authorization", pexelsApiKey);
-            
-            ResponseEntity<Map> response = new RestTemplate().exchange(
-                pexelsUrl,
-                HttpMethod.GET,
-                new HttpEntity<>(headers),
-                Map.class
-            );
-
-            if (response.getBody() != null && 
-                response.getBody().containsKey("photos") && 
-                !((List)response.getBody().get("photos")).isEmpty()) {
-                
-                Map<String, Object> photo = (Map<String, Object>)((List)response.getBody().get("photos")).get(0);
-                Map<String, String> src = (Map<String, String>)photo.get("src");
-                String imageUrl = src.get("medium");
-                
-                return ResponseEntity.ok(Collections.singletonMap("url", imageUrl));
-            }
+    public Mono<ResponseEntity<?>> getFoodImage(@RequestParam String name) {
+        return pexelsService.findImageUrl(name)
+                .defaultIfEmpty(NO_IMAGE_FOUND_URL)
+                .<ResponseEntity<?>>map(imageUrl -> ResponseEntity.ok(Collections.singletonMap("url", imageUrl)))
+                .onErrorResume(e -> Mono.just(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                        .body(Collections.singletonMap("error", "Failed to fetch image: " + e.getMessage()))));
+    }
 
-            return ResponseEntity.ok(Collections.singletonMap("url", 
-                "https://via.placeholder.com/400x300?text=No+Image+Found"));
-                
-        } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                .body(Collections.singletonMap("error", "Failed to fetch image: " + e.getMessage()));
-        }
+    @GetMapping("/pexels/cache-stats")
+    public ResponseEntity<Map<String, Object>> getFoodImageCacheStats() {
+        return ResponseEntity.ok(pexelsService.getCacheStats());
     }
 
     // Update the endpoint to match frontend call
     @GetMapping  // Changed from "/list" to root path
     public ResponseEntity<?> getMenuItems(@RequestHeader("Authorization") String authHeader,
-                                        @RequestHeader("Admin-ID") String adminId) {
+                                        @RequestHeader("Admin-ID") String adminId,
+                                        @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         try {
             // Validate token format
             if (authHeader == null || !authHeader.startsWith("Bearer ")) {
@@ -122,8 +164,7 @@ public class MenuController {
                 );
             }
 
-            List<MenuItem> menuItems = menuItemService.getAllMenuItems(adminId);
-            return ResponseEntity.ok(menuItems != null ? menuItems : Collections.emptyList());
+            return menuSnapshotResponse(adminId, ifNoneMatch);
         } catch (NumberFormatException e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(
                     Collections.singletonMap("error", "Invalid Admin ID format")
@@ -135,12 +176,24 @@ public class MenuController {
         }
     }
 
+    // Hit/miss counters for the per-admin menu cache
+    @GetMapping("/cache-stats")
+    public ResponseEntity<Map<String, Object>> getCacheStats() {
+        return ResponseEntity.ok(menuItemService.getCacheStats());
+    }
+
+    // Progress of the background image lookups for new menu items
+    @GetMapping("/image-enrichment/stats")
+    public ResponseEntity<Map<String, Object>> getImageEnrichmentStats() {
+        return ResponseEntity.ok(imageEnrichmentService.getStats());
+    }
+
     // Get specific menu item
     @GetMapping("/{id}")
     public ResponseEntity<?> getMenuItem(@PathVariable String id,
                                        @RequestHeader("Admin-ID") String adminId) {
         try {
-            MenuItem menuItem = menuItemService.getMenuItemById(id);
+            MenuItem menuItem = menuItemService.getMenuItemById(id, adminId);
             return menuItem != null ?
                    ResponseEntity.ok(menuItem) :
                    ResponseEntity.notFound().build();
@@ -151,6 +204,68 @@ public class MenuController {
         }
     }
 
+    /**
+     * Serves the menu item's locally stored thumbnail, generating it on first request. The file
+     * goes out through Tomcat's sendfile when the connector supports it, otherwise through
+     * FileChannel.transferTo, so the bytes are never copied through the heap. Images from an
+     * allowed host that can't be stored redirect to their original URL.
+     */
+    @GetMapping("/{id}/image")
+    public void getMenuItemImage(@PathVariable String id,
+                                 HttpServletRequest request,
+                                 HttpServletResponse response) throws IOException {
+        MenuImageStore.StoredImage image = menuImageStore.find(id);
+        if (image == null) {
+            MenuItem menuItem;
+            try {
+                menuItem = menuItemService.getMenuItemById(id);
+            } catch (RuntimeException e) {
+                response.sendError(HttpServletResponse.SC_NOT_FOUND);
+                return;
+            }
+            image = menuImageStore.getOrCreate(id, menuItem.getImageUrl());
+            if (image == null) {
+                if (menuImageStore.isAllowedSource(menuItem.getImageUrl())) {
+                    response.sendRedirect(menuItem.getImageUrl());
+                } else {
+                    response.sendError(HttpServletResponse.SC_NOT_FOUND);
+                }
+                return;
+            }
+        }
+
+        response.setHeader(HttpHeaders.ETAG, image.getEtag());
+        response.setHeader(HttpHeaders.CACHE_CONTROL, IMAGE_CACHE_CONTROL);
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch != null && (ifNoneMatch.contains(image.getEtag()) || ifNoneMatch.trim().equals("*"))) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        try (FileChannel file = FileChannel.open(image.getFile(), StandardOpenOption.READ)) {
+            long length = file.size();
+            response.setContentType(MediaType.IMAGE_JPEG_VALUE);
+            response.setContentLengthLong(length);
+
+            if (Boolean.TRUE.equals(request.getAttribute("org.apache.tomcat.sendfile.support"))) {
+                request.setAttribute("org.apache.tomcat.sendfile.filename", image.getFile().toAbsolutePath().toString());
+                request.setAttribute("org.apache.tomcat.sendfile.start", 0L);
+                request.setAttribute("org.apache.tomcat.sendfile.end", length);
+                return;
+            }
+
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = 0;
+            while (position < length) {
+                position += file.transferTo(position, length - position, out);
+            }
+        } catch (NoSuchFileException e) {
+            // Evicted by a concurrent menu update; the client can simply retry
+            response.reset();
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+        }
+    }
+
     @PutMapping("/{id}")
     public ResponseEntity<?> updateMenuItem(
             @PathVariable String id,
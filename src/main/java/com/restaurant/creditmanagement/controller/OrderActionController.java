@@ -1,7 +1,7 @@
 package com.restaurant.creditmanagement.controller;
 
-import com.restaurant.creditmanagement.model.Order;
-import com.restaurant.creditmanagement.repository.OrderRepository;
+import com.restaurant.creditmanagement.model.OrderStatus;
+import com.restaurant.creditmanagement.service.OrderService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -16,87 +16,45 @@ import javax.servlet.http.HttpSession;
 public class OrderActionController {
 
     @Autowired
-    private OrderRepository orderRepository;
+    private OrderService orderService;
 
     @PostMapping("/{id}/start")
     public String startOrder(@PathVariable String id,
                             RedirectAttributes redirectAttributes,
                             HttpSession session) {
-        if (session.getAttribute("adminId") == null) {
-            return "redirect:/login";
-        }
-
-        try {
-            Order order = orderRepository.findById(id)
-                    .orElseThrow(() -> new RuntimeException("Order not found"));
-
-            if (!"PENDING".equals(order.getStatus())) {
-                throw new IllegalStateException("Order can only be started from PENDING status");
-            }
-
-            String previousStatus = order.getStatus();
-            order.setStatus("APPROVED");
-            Order savedOrder = orderRepository.save(order);
-
-            redirectAttributes.addFlashAttribute("success", "Order started successfully!");
-        } catch (Exception e) {
-            redirectAttributes.addFlashAttribute("error", "Failed to start order: " + e.getMessage());
-        }
-
-        return "redirect:/orders";
+        return transition(id, OrderStatus.APPROVED, "start", "started", redirectAttributes, session);
     }
 
     @PostMapping("/{id}/complete")
     public String completeOrder(@PathVariable String id,
                                RedirectAttributes redirectAttributes,
                                HttpSession session) {
-        if (session.getAttribute("adminId") == null) {
-            return "redirect:/login";
-        }
-
-        try {
-            Order order = orderRepository.findById(id)
-                    .orElseThrow(() -> new RuntimeException("Order not found"));
-
-            if (!"APPROVED".equals(order.getStatus())) {
-                throw new IllegalStateException("Order can only be completed from APPROVED status");
-            }
-
-            String previousStatus = order.getStatus();
-            order.setStatus("COMPLETED");
-            Order savedOrder = orderRepository.save(order);
-
-            redirectAttributes.addFlashAttribute("success", "Order completed successfully!");
-        } catch (Exception e) {
-            redirectAttributes.addFlashAttribute("error", "Failed to complete order: " + e.getMessage());
-        }
-
-        return "redirect:/orders";
+        return transition(id, OrderStatus.COMPLETED, "complete", "completed", redirectAttributes, session);
     }
 
     @PostMapping("/{id}/cancel")
     public String cancelOrder(@PathVariable String id,
                              RedirectAttributes redirectAttributes,
                              HttpSession session) {
-        if (session.getAttribute("adminId") == null) {
+        return transition(id, OrderStatus.CANCELLED, "cancel", "cancelled", redirectAttributes, session);
+    }
+
+    // Same state machine and single conditional update as the REST endpoints
+    private String transition(String id, OrderStatus target, String action, String done,
+                              RedirectAttributes redirectAttributes, HttpSession session) {
+        Object adminId = session.getAttribute("adminId");
+        if (adminId == null) {
             return "redirect:/login";
         }
 
         try {
-            Order order = orderRepository.findById(id)
-                    .orElseThrow(() -> new RuntimeException("Order not found"));
-
-            if ("COMPLETED".equals(order.getStatus()) || "CANCELLED".equals(order.getStatus())) {
-                throw new IllegalStateException("Cannot cancel order in " + order.getStatus() + " status");
+            if (orderService.transitionStatus(id, adminId.toString(), target).isPresent()) {
+                redirectAttributes.addFlashAttribute("success", "Order " + done + " successfully!");
+            } else {
+                redirectAttributes.addFlashAttribute("error", "Failed to " + action + " order: Order not found");
             }
-
-            String previousStatus = order.getStatus();
-            order.setStatus("CANCELLED");
-            Order savedOrder = orderRepository.save(order);
-
-            redirectAttributes.addFlashAttribute("success", "Order cancelled successfully!");
         } catch (Exception e) {
-            redirectAttributes.addFlashAttribute("error", "Failed to cancel order: " + e.getMessage());
+            redirectAttributes.addFlashAttribute("error", "Failed to " + action + " order: " + e.getMessage());
         }
 
         return "redirect:/orders";
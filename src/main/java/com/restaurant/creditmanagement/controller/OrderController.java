@@ -1,14 +1,21 @@
 package com.restaurant.creditmanagement.controller;
 
-import com.restaurant.creditmanagement.model.Customer;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.restaurant.creditmanagement.dto.CursorPage;
+import com.restaurant.creditmanagement.dto.OrderFilter;
+import com.restaurant.creditmanagement.dto.PageCursor;
 import com.restaurant.creditmanagement.model.MenuItem;
 import com.restaurant.creditmanagement.model.Order;
+import com.restaurant.creditmanagement.model.OrderLine;
+import com.restaurant.creditmanagement.model.OrderStatus;
 import com.restaurant.creditmanagement.model.PaymentMethod;
 import com.restaurant.creditmanagement.service.CustomerService;
+import com.restaurant.creditmanagement.service.OrderImportService;
 import com.restaurant.creditmanagement.service.OrderService;
 import com.restaurant.creditmanagement.service.MenuItemService;
 import lombok.Data;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Controller;
@@ -19,16 +26,23 @@ import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
 import javax.servlet.http.HttpSession;
+import java.io.InputStream;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/orders")
 @CrossOrigin(origins = {"http://localhost:3000", "https://credit-management-system.vercel.app"})
 public class OrderController {
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 200;
+
     @Autowired
     private OrderService orderService;
 
@@ -38,6 +52,9 @@ public class OrderController {
     @Autowired
     private MenuItemService menuItemService;
 
+    @Autowired
+    private OrderImportService orderImportService;
+
     // Response DTO for orders with customer information
     public static class OrderResponse {
         private String id;
@@ -47,15 +64,21 @@ public class OrderController {
         private String status;
         private String paymentMethod;
         private String notes;
+        @JsonInclude(JsonInclude.Include.NON_NULL)
+        private List<String> orderItemIds;
+        @JsonInclude(JsonInclude.Include.NON_NULL)
+        private List<OrderLine> lines;
 
-        public OrderResponse(Order order, Customer customer) {
+        public OrderResponse(Order order, String customerName) {
             this.id = order.getId();
-            this.customer = new CustomerInfo(customer.getName());
+            this.customer = new CustomerInfo(customerName);
             this.orderDate = order.getOrderDate().toString();
             this.totalAmount = order.getTotalAmount();
             this.status = order.getStatus();
             this.paymentMethod = order.getPaymentMethod();
             this.notes = order.getNotes();
+            this.orderItemIds = order.getOrderItemIds();
+            this.lines = order.getLines();
         }
 
         // Getters
@@ -66,6 +89,8 @@ public class OrderController {
         public String getStatus() { return status; }
         public String getPaymentMethod() { return paymentMethod; }
         public String getNotes() { return notes; }
+        public List<String> getOrderItemIds() { return orderItemIds; }
+        public List<OrderLine> getLines() { return lines; }
     }
 
     public static class CustomerInfo {
@@ -82,40 +107,43 @@ public class OrderController {
     public ResponseEntity<?> createOrder(@RequestBody OrderRequest orderRequest,
                                         @RequestHeader("Admin-ID") String adminId) {
         try {
-            Customer customer = customerService.getCustomerById(orderRequest.getCustomerId(), adminId)
-                    .orElseThrow(() -> new IllegalArgumentException("Customer not found"));
-
             Order order = new Order();
             order.setAdminId(adminId);
             order.setCustomerId(orderRequest.getCustomerId());
             order.setPaymentMethod(orderRequest.getPaymentMethod());
             order.setNotes(orderRequest.getNotes());
             order.setTax(orderRequest.getTax());
-            order.setTotalAmount(orderRequest.getTotalAmount());
             order.setOrderDate(LocalDateTime.now());
-            order.setStatus("PENDING");
+            order.setStatus(OrderStatus.PENDING.name());
 
-            if ("CREDIT".equalsIgnoreCase(orderRequest.getPaymentMethod())) {
-                BigDecimal currentBalance = customer.getCreditBalance() != null ?
-                        customer.getCreditBalance() : BigDecimal.ZERO;
-                BigDecimal orderAmount = orderRequest.getTotalAmount();
-                BigDecimal creditLimit = customer.getTotalCredit();
+            // The total is computed from the resolved menu prices, not taken from the client
+            List<OrderLine> lines = orderService.priceOrder(order,
+                    orderRequest.getMenuItemIds(),
+                    orderRequest.getQuantities());
 
-                // Check if new total balance would exceed credit limit
-                BigDecimal newBalance = currentBalance.add(orderAmount);
-                if (newBalance.compareTo(creditLimit) > 0) {
+            boolean creditOrder = "CREDIT".equalsIgnoreCase(orderRequest.getPaymentMethod());
+            if (creditOrder) {
+                // Checks the limit and increments the balance in one atomic update
+                if (!customerService.reserveCredit(order.getCustomerId(), adminId, order.getTotalAmount()).isPresent()) {
+                    if (!customerService.customerExists(order.getCustomerId(), adminId)) {
+                        throw new IllegalArgumentException("Customer not found");
+                    }
                     return ResponseEntity.badRequest().body("Total credit balance would exceed credit limit");
                 }
-
-                // Update customer's credit balance
-                customer.setCreditBalance(newBalance);
-                customerService.updateCustomer(customer, adminId);
-                order.setStatus("COMPLETED"); // Mark credit orders as completed
+                order.setStatus(OrderStatus.COMPLETED.name()); // Mark credit orders as completed
+            } else if (!customerService.customerExists(order.getCustomerId(), adminId)) {
+                throw new IllegalArgumentException("Customer not found");
             }
 
-            Order savedOrder = orderService.createOrder(order,
-                    orderRequest.getMenuItemIds(),
-                    orderRequest.getQuantities());
+            Order savedOrder;
+            try {
+                savedOrder = orderService.saveOrder(order, lines);
+            } catch (RuntimeException e) {
+                if (creditOrder) {
+                    customerService.releaseCredit(order.getCustomerId(), adminId, order.getTotalAmount());
+                }
+                throw e;
+            }
 
             return ResponseEntity.ok(savedOrder);
         } catch (Exception e) {
@@ -124,33 +152,43 @@ public class OrderController {
     }
 
     @GetMapping
-    public ResponseEntity<List<OrderResponse>> getOrders(@RequestHeader("Admin-ID") String adminId) {
+    public ResponseEntity<?> getOrders(@RequestHeader("Admin-ID") String adminId,
+                                       @RequestParam(required = false) String cursor,
+                                       @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int size,
+                                       @RequestParam(required = false) String status,
+                                       @RequestParam(required = false) String paymentMethod,
+                                       @RequestParam(required = false)
+                                       @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                       @RequestParam(required = false)
+                                       @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                       @RequestParam(required = false) List<String> include) {
         try {
-            List<Order> orders = orderService.getOrdersByAdminId(adminId);
-            List<OrderResponse> orderResponses = new ArrayList<>();
+            int pageSize = Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+            boolean includeDetails = include != null &&
+                    (include.contains("notes") || include.contains("orderItemIds") || include.contains("lines"));
 
-            for (Order order : orders) {
-                try {
-                    Customer customer = customerService.getCustomerById(order.getCustomerId(), adminId)
-                            .orElse(null);
-                    if (customer != null) {
-                        orderResponses.add(new OrderResponse(order, customer));
-                    } else {
-                        // Create response with placeholder customer for missing customers
-                        Customer placeholderCustomer = new Customer();
-                        placeholderCustomer.setName("Unknown Customer");
-                        orderResponses.add(new OrderResponse(order, placeholderCustomer));
-                    }
-                } catch (Exception e) {
-                    // If there's an error, still include the order with placeholder customer
-                    System.err.println("Error processing order: " + order.getId() + ", " + e.getMessage());
-                    Customer placeholderCustomer = new Customer();
-                    placeholderCustomer.setName("Unknown Customer");
-                    orderResponses.add(new OrderResponse(order, placeholderCustomer));
-                }
+            CursorPage<Order> page = orderService.getOrderPage(adminId,
+                    new OrderFilter(status, paymentMethod, from, to),
+                    PageCursor.decode(cursor), pageSize, includeDetails);
+
+            // One batched lookup for every customer on the page instead of one query per order
+            Map<String, String> customerNames = customerService.getCustomerNames(adminId,
+                    page.getItems().stream().map(Order::getCustomerId).collect(Collectors.toSet()));
+
+            List<OrderResponse> orderResponses = new ArrayList<>();
+            for (Order order : page.getItems()) {
+                orderResponses.add(new OrderResponse(order,
+                        customerNames.getOrDefault(order.getCustomerId(), "Unknown Customer")));
             }
 
-            return ResponseEntity.ok(orderResponses);
+            // The body stays a plain array; the cursor for the next page travels in a header
+            ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+            if (page.getNextCursor() != null) {
+                response.header(NEXT_CURSOR_HEADER, page.getNextCursor());
+            }
+            return response.body(orderResponses);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
         } catch (Exception e) {
             return ResponseEntity.badRequest().build();
         }
@@ -190,89 +228,72 @@ public class OrderController {
                                          @RequestBody Order updatedOrder,
                                          @RequestHeader("Admin-ID") String adminId) {
         try {
-            Order existingOrder = orderService.getOrderById(id);
-            if (!existingOrder.getAdminId().equals(adminId)) {
+            // Only status, paymentMethod and notes are taken from the body
+            Optional<Order> savedOrder = orderService.updateOrder(id, adminId, updatedOrder.getStatus(),
+                    updatedOrder.getPaymentMethod(), updatedOrder.getNotes());
+            if (!savedOrder.isPresent()) {
                 return ResponseEntity.notFound().build();
             }
-
-            // Update only allowed fields
-            existingOrder.setStatus(updatedOrder.getStatus());
-            existingOrder.setPaymentMethod(updatedOrder.getPaymentMethod());
-            existingOrder.setNotes(updatedOrder.getNotes());
-
-            Order savedOrder = orderService.updateOrder(existingOrder);
-
-            return ResponseEntity.ok(savedOrder);
+            return ResponseEntity.ok(savedOrder.get());
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(e.getMessage());
         }
     }
 
-    @PostMapping("/{id}/start")
-    public ResponseEntity<?> startOrder(@PathVariable String id,
-                                       @RequestHeader("Admin-ID") String adminId) {
+    // NDJSON body, one order per line; see OrderImportLine for the fields
+    @PostMapping("/import")
+    public ResponseEntity<?> importOrders(@RequestHeader("Admin-ID") String adminId, InputStream body) {
         try {
-            Order order = orderService.getOrderById(id);
-            if (!order.getAdminId().equals(adminId)) {
-                return ResponseEntity.notFound().build();
-            }
-
-            if (!"PENDING".equals(order.getStatus())) {
-                return ResponseEntity.badRequest().body("Order can only be started from PENDING status");
-            }
-
-            order.setStatus("APPROVED");
-            Order savedOrder = orderService.updateOrder(order);
-
-            return ResponseEntity.ok(savedOrder);
+            return ResponseEntity.ok(orderImportService.importOrders(adminId, body));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(e.getMessage());
         }
     }
 
-    @PostMapping("/{id}/complete")
-    public ResponseEntity<?> completeOrder(@PathVariable String id,
-                                          @RequestHeader("Admin-ID") String adminId) {
+    // Body maps order item id to its new quantity; lines not listed keep theirs
+    @PutMapping("/{id}/quantities")
+    public ResponseEntity<?> updateOrderQuantities(@PathVariable String id,
+                                                   @RequestBody Map<String, Integer> quantities,
+                                                   @RequestHeader("Admin-ID") String adminId) {
         try {
-            Order order = orderService.getOrderById(id);
-            if (!order.getAdminId().equals(adminId)) {
-                return ResponseEntity.notFound().build();
-            }
-
-            if (!"APPROVED".equals(order.getStatus())) {
-                return ResponseEntity.badRequest().body("Order can only be completed from APPROVED status");
-            }
-
-            order.setStatus("COMPLETED");
-            Order savedOrder = orderService.updateOrder(order);
-
-            return ResponseEntity.ok(savedOrder);
+            return ResponseEntity.ok(orderService.updateOrderQuantities(id, adminId, quantities));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(e.getMessage());
         }
     }
 
+    @PostMapping("/{id}/start")
+    public ResponseEntity<?> startOrder(@PathVariable String id,
+                                       @RequestHeader("Admin-ID") String adminId) {
+        return transition(id, adminId, OrderStatus.APPROVED);
+    }
+
+    @PostMapping("/{id}/complete")
+    public ResponseEntity<?> completeOrder(@PathVariable String id,
+                                          @RequestHeader("Admin-ID") String adminId) {
+        return transition(id, adminId, OrderStatus.COMPLETED);
+    }
+
     @PostMapping("/{id}/cancel")
     public ResponseEntity<?> cancelOrder(@PathVariable String id,
                                         @RequestHeader("Admin-ID") String adminId) {
+        return transition(id, adminId, OrderStatus.CANCELLED);
+    }
+
+    private ResponseEntity<?> transition(String id, String adminId, OrderStatus target) {
         try {
-            Order order = orderService.getOrderById(id);
-            if (!order.getAdminId().equals(adminId)) {
+            Optional<Order> order = orderService.transitionStatus(id, adminId, target);
+            if (!order.isPresent()) {
                 return ResponseEntity.notFound().build();
             }
-
-            if ("COMPLETED".equals(order.getStatus()) || "CANCELLED".equals(order.getStatus())) {
-                return ResponseEntity.badRequest().body("Cannot cancel order in " + order.getStatus() + " status");
-            }
-
-            order.setStatus("CANCELLED");
-            Order savedOrder = orderService.updateOrder(order);
-
-            return ResponseEntity.ok(savedOrder);
+            return ResponseEntity.ok(order.get());
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(e.getMessage());
         }
     }
+
     @Data
     static class OrderRequest {
         private String customerId;
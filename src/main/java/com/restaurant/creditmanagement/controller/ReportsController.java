@@ -4,6 +4,7 @@ import com.restaurant.creditmanagement.model.Customer;
 import com.restaurant.creditmanagement.model.Order;
 import com.restaurant.creditmanagement.service.CustomerService;
 import com.restaurant.creditmanagement.service.OrderService;
+import com.restaurant.creditmanagement.service.ReportService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
@@ -24,42 +25,40 @@ public class ReportsController {
     @Autowired
     private OrderService orderService;
 
+    @Autowired
+    private ReportService reportService;
+
     @GetMapping("/detailed")
     public ResponseEntity<?> getDetailedAnalytics(@RequestHeader("Admin-ID") String adminId) {
         if (adminId == null) {
             return ResponseEntity.badRequest().body("Admin ID is required");
         }
 
-        Map<String, Object> response = new HashMap<>();
-        
-        // Menu Analytics
-        Map<String, Object> menuAnalytics = new HashMap<>();
-        
-        // Top Selling Items
-        List<Map<String, Object>> topSellingItems = orderService.getTopSellingItems(adminId);
-        menuAnalytics.put("topSellingItems", topSellingItems);
-        
-        // Category Performance
-        List<Map<String, Object>> categoryPerformance = orderService.getCategoryPerformance(adminId);
-        menuAnalytics.put("categoryPerformance", categoryPerformance);
-        
-        // Time-based Analysis
-        Map<String, Object> timeBasedAnalysis = new HashMap<>();
-        timeBasedAnalysis.put("peakHours", orderService.getPeakHours(adminId));
-        timeBasedAnalysis.put("weeklyTrends", orderService.getWeeklyTrends(adminId));
-        menuAnalytics.put("timeBasedAnalysis", timeBasedAnalysis);
-        
-        // Customer Analytics
-        Map<String, Object> customerAnalytics = new HashMap<>();
-        customerAnalytics.put("loyaltyDistribution", customerService.getLoyaltyDistribution(adminId));
-        customerAnalytics.put("orderFrequency", customerService.getOrderFrequency(adminId));
-        customerAnalytics.put("averageOrderValue", orderService.getAverageOrderValue(adminId));
-
-        response.put("menuAnalytics", menuAnalytics);
-        response.put("customerAnalytics", customerAnalytics);
+        // Built from the sales rollups, the menu item aggregations, customer segments and admin stats
+        Map<String, Object> response = reportService.getDetailedAnalytics(adminId);
 
         return ResponseEntity.ok(response);
     }
 
+    @GetMapping("/top-selling-items")
+    public ResponseEntity<?> getTopSellingItems(@RequestHeader("Admin-ID") String adminId,
+                                                @RequestParam(defaultValue = "quantity") String sortBy,
+                                                @RequestParam(defaultValue = "10") int limit) {
+        if (!"quantity".equals(sortBy) && !"revenue".equals(sortBy)) {
+            return ResponseEntity.badRequest().body("sortBy must be quantity or revenue");
+        }
+        return ResponseEntity.ok(orderService.getTopSellingItems(adminId, sortBy, Math.max(limit, 0)));
+    }
+
+    @GetMapping("/category-performance")
+    public ResponseEntity<?> getCategoryPerformance(@RequestHeader("Admin-ID") String adminId,
+                                                    @RequestParam(defaultValue = "revenue") String sortBy,
+                                                    @RequestParam(defaultValue = "0") int limit) {
+        if (!"orders".equals(sortBy) && !"revenue".equals(sortBy)) {
+            return ResponseEntity.badRequest().body("sortBy must be orders or revenue");
+        }
+        return ResponseEntity.ok(orderService.getCategoryPerformance(adminId, sortBy, Math.max(limit, 0)));
+    }
+
 
 }
@@ -0,0 +1,18 @@
+package com.restaurant.creditmanagement.dto;
+
+import java.util.List;
+
+public class CursorPage<T> {
+    private final List<T> items;
+    private final String nextCursor;
+
+    public CursorPage(List<T> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<T> getItems() { return items; }
+
+    // Null on the last page
+    public String getNextCursor() { return nextCursor; }
+}
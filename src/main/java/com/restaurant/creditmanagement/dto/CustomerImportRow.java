@@ -0,0 +1,21 @@
+package com.restaurant.creditmanagement.dto;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+
+// One row of a customer bulk import; the balance is the customer's outstanding credit at the time
+@Data
+public class CustomerImportRow {
+    private String name;
+
+    private String phone;
+
+    private String email;
+
+    private String address;
+
+    private BigDecimal totalCredit;
+
+    private BigDecimal creditBalance;
+}
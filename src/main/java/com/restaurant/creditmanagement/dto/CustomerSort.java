@@ -0,0 +1,69 @@
+package com.restaurant.creditmanagement.dto;
+
+import com.restaurant.creditmanagement.model.Customer;
+import org.springframework.data.domain.Sort;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Orderings for the customer list. Each one sorts on a single field with the id as tie-breaker,
+ * matching one of the (adminId, field, _id) indexes, so pages can be fetched by keyset.
+ */
+public enum CustomerSort {
+    NAME("normalizedName", Sort.Direction.ASC),
+    BALANCE("creditBalance", Sort.Direction.DESC),
+    CREATED("createdAt", Sort.Direction.DESC);
+
+    private final String field;
+    private final Sort.Direction direction;
+
+    CustomerSort(String field, Sort.Direction direction) {
+        this.field = field;
+        this.direction = direction;
+    }
+
+    public String getField() { return field; }
+    public Sort.Direction getDirection() { return direction; }
+
+    public static CustomerSort fromParam(String param) {
+        if (param == null || param.trim().isEmpty()) {
+            return NAME;
+        }
+        switch (param.trim().toLowerCase()) {
+            case "name": return NAME;
+            case "balance": return BALANCE;
+            case "created": return CREATED;
+            default: throw new IllegalArgumentException("Invalid sort: " + param);
+        }
+    }
+
+    // The customer's sort value as it is written into a cursor
+    public String cursorValue(Customer customer) {
+        switch (this) {
+            case NAME:
+                return customer.getNormalizedName() != null ? customer.getNormalizedName() : "";
+            case BALANCE:
+                return customer.getCreditBalance() != null ? customer.getCreditBalance().toPlainString() : null;
+            default:
+                return customer.getCreatedAt() != null ? customer.getCreatedAt().toString() : null;
+        }
+    }
+
+    // Reverses cursorValue; null means the last row had no value for the field
+    public Object parseCursorValue(String value) {
+        try {
+            switch (this) {
+                case NAME:
+                    return value != null ? value : "";
+                case BALANCE:
+                    return value != null ? new BigDecimal(value) : null;
+                default:
+                    return value != null ? LocalDateTime.parse(value) : null;
+            }
+        } catch (NumberFormatException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+}
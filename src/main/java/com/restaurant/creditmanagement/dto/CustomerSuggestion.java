@@ -0,0 +1,30 @@
+package com.restaurant.creditmanagement.dto;
+
+import com.restaurant.creditmanagement.model.Customer;
+
+// Lightweight search hit: just enough to render an autocomplete row
+public class CustomerSuggestion {
+    private final String id;
+    private final String name;
+    private final String phone;
+    private final String email;
+
+    public CustomerSuggestion(String id, String name, String phone, String email) {
+        this.id = id;
+        this.name = name;
+        this.phone = phone;
+        this.email = email;
+    }
+
+    public static CustomerSuggestion of(Customer customer) {
+        return new CustomerSuggestion(customer.getId(), customer.getName(), customer.getPhone(), customer.getEmail());
+    }
+
+    public String getId() { return id; }
+
+    public String getName() { return name; }
+
+    public String getPhone() { return phone; }
+
+    public String getEmail() { return email; }
+}
@@ -0,0 +1,38 @@
+package com.restaurant.creditmanagement.dto;
+
+import com.restaurant.creditmanagement.model.Customer;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// The fields a customer list row shows; built from a projected query, not the full document
+public class CustomerSummary {
+    private final String id;
+    private final String name;
+    private final String phone;
+    private final String email;
+    private final BigDecimal totalCredit;
+    private final BigDecimal creditBalance;
+    private final LocalDateTime createdAt;
+    private final boolean active;
+
+    public CustomerSummary(Customer customer) {
+        this.id = customer.getId();
+        this.name = customer.getName();
+        this.phone = customer.getPhone();
+        this.email = customer.getEmail();
+        this.totalCredit = customer.getTotalCredit();
+        this.creditBalance = customer.getCreditBalance();
+        this.createdAt = customer.getCreatedAt();
+        this.active = customer.isActive();
+    }
+
+    public String getId() { return id; }
+    public String getName() { return name; }
+    public String getPhone() { return phone; }
+    public String getEmail() { return email; }
+    public BigDecimal getTotalCredit() { return totalCredit; }
+    public BigDecimal getCreditBalance() { return creditBalance; }
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public boolean isActive() { return active; }
+}
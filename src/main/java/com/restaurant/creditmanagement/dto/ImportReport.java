@@ -0,0 +1,51 @@
+package com.restaurant.creditmanagement.dto;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Running totals for a bulk import; only the first maxErrors failures are kept for the response
+public class ImportReport {
+    private final int maxErrors;
+    private final List<Map<String, Object>> errors = new ArrayList<>();
+    private long lines;
+    private long imported;
+    private long failed;
+
+    public ImportReport(int maxErrors) {
+        this.maxErrors = maxErrors;
+    }
+
+    public void lineRead() {
+        lines++;
+    }
+
+    public void imported(long count) {
+        imported += count;
+    }
+
+    public void fail(long lineNumber, String message) {
+        failed++;
+        if (errors.size() < maxErrors) {
+            Map<String, Object> error = new LinkedHashMap<>();
+            error.put("line", lineNumber);
+            error.put("error", message);
+            errors.add(error);
+        }
+    }
+
+    public long getLines() { return lines; }
+    public long getImported() { return imported; }
+    public long getFailed() { return failed; }
+
+    public Map<String, Object> toMap() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("lines", lines);
+        result.put("imported", imported);
+        result.put("failed", failed);
+        result.put("errors", errors);
+        result.put("errorsTruncated", failed > errors.size());
+        return result;
+    }
+}
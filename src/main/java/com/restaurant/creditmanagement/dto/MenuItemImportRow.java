@@ -0,0 +1,27 @@
+package com.restaurant.creditmanagement.dto;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+
+// One row of a menu bulk import; rows without an imageUrl get one from the background enrichment
+@Data
+public class MenuItemImportRow {
+    private String name;
+
+    private String description;
+
+    private BigDecimal price;
+
+    private String category;
+
+    private String imageUrl;
+
+    private Integer prepTime;
+
+    private Boolean isSpecial;
+
+    private Boolean available;
+
+    private Integer rating;
+}
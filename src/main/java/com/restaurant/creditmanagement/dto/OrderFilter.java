@@ -0,0 +1,26 @@
+package com.restaurant.creditmanagement.dto;
+
+import java.time.LocalDateTime;
+
+public class OrderFilter {
+    private String status;
+    private String paymentMethod;
+    private LocalDateTime from;
+    private LocalDateTime to;
+
+    public OrderFilter(String status, String paymentMethod, LocalDateTime from, LocalDateTime to) {
+        this.status = status;
+        this.paymentMethod = paymentMethod;
+        this.from = from;
+        this.to = to;
+    }
+
+    public String getStatus() { return status; }
+    public String getPaymentMethod() { return paymentMethod; }
+
+    // Inclusive lower bound on createdAt
+    public LocalDateTime getFrom() { return from; }
+
+    // Exclusive upper bound on createdAt
+    public LocalDateTime getTo() { return to; }
+}
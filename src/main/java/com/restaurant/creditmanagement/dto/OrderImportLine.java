@@ -0,0 +1,39 @@
+package com.restaurant.creditmanagement.dto;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+// One line of an NDJSON order import: a historical ticket from another system
+@Data
+public class OrderImportLine {
+    // Optional; makes re-running the same file skip orders that were already imported
+    private String externalId;
+
+    private String customerId;
+
+    private LocalDateTime orderDate;
+
+    // Defaults to COMPLETED and CASH
+    private String status;
+
+    private String paymentMethod;
+
+    private String notes;
+
+    private BigDecimal tax;
+
+    private List<Item> items;
+
+    @Data
+    public static class Item {
+        private String menuItemId;
+
+        private Integer quantity;
+
+        // The price charged at the time; defaults to the current menu price
+        private BigDecimal unitPrice;
+    }
+}
@@ -0,0 +1,43 @@
+package com.restaurant.creditmanagement.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Opaque keyset cursor: the sort value and id of the last row on a page. The next page
+ * starts strictly after that (value, id) pair, so no offset scan is needed.
+ */
+public class PageCursor {
+    private final String value;
+    private final String id;
+
+    public PageCursor(String value, String id) {
+        this.value = value;
+        this.id = id;
+    }
+
+    public String getValue() { return value; }
+    public String getId() { return id; }
+
+    public String encode() {
+        String raw = (value != null ? value : "") + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static PageCursor decode(String cursor) {
+        if (cursor == null || cursor.trim().isEmpty()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor.trim()), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf('|');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            String value = raw.substring(0, separator);
+            return new PageCursor(value.isEmpty() ? null : value, raw.substring(separator + 1));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.restaurant.creditmanagement.event;
+
+// Published when an admin's menu items change outside MenuItemService, e.g. by background jobs
+public class MenuChangedEvent {
+    private final String adminId;
+
+    public MenuChangedEvent(String adminId) {
+        this.adminId = adminId;
+    }
+
+    public String getAdminId() { return adminId; }
+}
@@ -3,6 +3,7 @@ package com.restaurant.creditmanagement.model;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.mongodb.core.mapping.Document;
 import java.util.Date;
+import java.util.List;
 
 @Document(collection = "admins")
 public class Admin {
@@ -94,4 +95,25 @@ public class Admin {
     public void setPhoneNumber(String phoneNumber) {
         this.phoneNumber = phoneNumber;
     }
+
+    // Customer segmentation thresholds; null means the defaults
+    private List<Integer> loyaltyThresholds;
+
+    private List<Integer> frequencyThresholds;
+
+    public List<Integer> getLoyaltyThresholds() {
+        return loyaltyThresholds;
+    }
+
+    public void setLoyaltyThresholds(List<Integer> loyaltyThresholds) {
+        this.loyaltyThresholds = loyaltyThresholds;
+    }
+
+    public List<Integer> getFrequencyThresholds() {
+        return frequencyThresholds;
+    }
+
+    public void setFrequencyThresholds(List<Integer> frequencyThresholds) {
+        this.frequencyThresholds = frequencyThresholds;
+    }
 }
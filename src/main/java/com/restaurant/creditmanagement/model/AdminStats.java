@@ -0,0 +1,24 @@
+package com.restaurant.creditmanagement.model;
+
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// Running dashboard totals for one admin, kept current with $inc and rebuilt by reconciliation
+@Data
+@Document(collection = "admin_stats")
+public class AdminStats {
+    @Id
+    private String adminId;
+
+    private BigDecimal revenue = BigDecimal.ZERO;
+    private long orderCount;
+    private long customerCount;
+    private BigDecimal outstandingCredit = BigDecimal.ZERO;
+    private LocalDateTime rebuiltAt;
+
+    // Bumped by every delta, so a rebuild only replaces the totals it read; null on older documents
+    private Long version;
+}
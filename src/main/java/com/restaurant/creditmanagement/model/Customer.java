@@ -2,19 +2,29 @@ package com.restaurant.creditmanagement.model;
 
 import lombok.Data;
 import org.springframework.data.annotation.Id;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.Document;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
-import java.util.ArrayList;
 import java.util.List;
 
 @Data
 @Document(collection = "customers")
+@CompoundIndexes({
+        @CompoundIndex(name = "admin_credit_balance_id", def = "{'adminId': 1, 'creditBalance': -1, '_id': -1}"),
+        @CompoundIndex(name = "admin_normalized_name_id", def = "{'adminId': 1, 'normalizedName': 1, '_id': 1}"),
+        @CompoundIndex(name = "admin_created_id", def = "{'adminId': 1, 'createdAt': -1, '_id': -1}")
+})
 public class Customer {
     @Id
     private String id;
 
     private String name;
+    // Lower-cased, accent-free name for prefix search; kept in step with name on every write
+    @JsonIgnore
+    private String normalizedName;
     private String phone;
     private String email;
     private String address;
@@ -22,10 +32,20 @@ public class Customer {
     private BigDecimal creditBalance = BigDecimal.ZERO;
     private LocalDateTime createdAt;
     private String adminId; // Changed from Long to String for MongoDB
-    private List<String> transactionIds = new ArrayList<>(); // Reference to transactions
-    private List<String> orderIds = new ArrayList<>(); // Reference to orders
     private boolean active = true;
 
+    // Running stats, maintained with atomic updates on order and settlement writes
+    private long orderCount;
+    private BigDecimal lifetimeSpend = BigDecimal.ZERO;
+    private LocalDateTime lastOrderAt;
+    private LocalDateTime lastSettlementAt;
+    // Bumped by every stats write, so a rebuild never overwrites one it didn't see; null until the first
+    @JsonIgnore
+    private Long statsVersion;
+    // Idempotency keys of the most recent settlements, checked in the same update as the balance
+    @JsonIgnore
+    private List<String> settlementKeys;
+
     // Explicit getter/setter for boolean field
     public boolean isActive() {
         return active;
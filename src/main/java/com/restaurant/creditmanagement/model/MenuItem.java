@@ -20,6 +20,24 @@ public class MenuItem {
     private Boolean available;
     private Integer rating;
 
+    public MenuItem() {
+    }
+
+    // Field-by-field copy; every field is immutable, so the copy shares nothing mutable
+    public MenuItem(MenuItem other) {
+        this.id = other.id;
+        this.adminId = other.adminId;
+        this.name = other.name;
+        this.description = other.description;
+        this.price = other.price;
+        this.category = other.category;
+        this.imageUrl = other.imageUrl;
+        this.prepTime = other.prepTime;
+        this.isSpecial = other.isSpecial;
+        this.available = other.available;
+        this.rating = other.rating;
+    }
+
     // Add getters and setters for all fields
     public String getAdminId() {
         return adminId;
@@ -0,0 +1,15 @@
+package com.restaurant.creditmanagement.model;
+
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+// Per-admin menu version, bumped with $inc on every menu write; identifies menu snapshots
+@Data
+@Document(collection = "menu_versions")
+public class MenuVersion {
+    @Id
+    private String adminId;
+
+    private long version;
+}
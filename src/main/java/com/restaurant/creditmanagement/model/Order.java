@@ -1,7 +1,10 @@
 package com.restaurant.creditmanagement.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.Data;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.Document;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -9,14 +12,24 @@ import java.util.List;
 
 @Data
 @Document(collection = "orders")
+@CompoundIndexes({
+        @CompoundIndex(name = "admin_created_id", def = "{'adminId': 1, 'createdAt': -1, '_id': -1}"),
+        // Lets a bulk import be re-run without duplicating orders it already wrote
+        @CompoundIndex(name = "admin_external_id", def = "{'adminId': 1, 'externalId': 1}",
+                unique = true, partialFilter = "{ 'externalId': { $exists: true } }")
+})
 public class Order {
     @Id
     private String id;
 
     private String customerId;
 
+    // Set when the lines live in order_items; orders written in embedded mode use lines instead
     private List<String> orderItemIds;
 
+    // The order's lines, embedded so the order reads in one fetch; null for orders not yet migrated
+    private List<OrderLine> lines;
+
     private String adminId;
 
     private BigDecimal totalAmount;
@@ -25,6 +38,13 @@ public class Order {
 
     private String status;
 
+    // Bumped by every write to the lines or total; edits are conditional on the version they read
+    @JsonIgnore
+    private Long version;
+
+    // When status last changed through a transition
+    private LocalDateTime statusUpdatedAt;
+
     private String paymentMethod;
 
     private String notes;
@@ -32,4 +52,7 @@ public class Order {
     private BigDecimal tax;
 
     private LocalDateTime createdAt;
+
+    // The order's id in the system it was imported from, if any
+    private String externalId;
 }
@@ -2,6 +2,7 @@ package com.restaurant.creditmanagement.model;
 
 import lombok.Data;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 import java.math.BigDecimal;
 
@@ -11,6 +12,7 @@ public class OrderItem {
     @Id
     private String id;
 
+    @Indexed
     private String orderId;
 
     private String menuItemId;
@@ -0,0 +1,68 @@
+package com.restaurant.creditmanagement.model;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+
+/**
+ * A line embedded in its order. Name and category are copied from the menu item when the order
+ * is placed, so reports show what was sold even after the menu changes. The id matches the
+ * order item id for lines that were migrated from order_items.
+ */
+@Data
+public class OrderLine {
+    private String id;
+
+    private String menuItemId;
+
+    private String name;
+
+    private String category;
+
+    private Integer quantity;
+
+    private BigDecimal unitPrice;
+
+    /** A line for the order item; name and category stay null if the menu item no longer exists. */
+    public static OrderLine of(OrderItem item, MenuItem menuItem) {
+        OrderLine line = new OrderLine();
+        line.setId(item.getId());
+        line.setMenuItemId(item.getMenuItemId());
+        line.setQuantity(item.getQuantity());
+        line.setUnitPrice(item.getUnitPrice());
+        if (menuItem != null) {
+            line.setName(menuItem.getName());
+            line.setCategory(menuItem.getCategory());
+        }
+        return line;
+    }
+
+    // A copy with another quantity; lines handed to the rollups must not change underneath them
+    public OrderLine withQuantity(Integer quantity) {
+        OrderLine line = new OrderLine();
+        line.setId(id);
+        line.setMenuItemId(menuItemId);
+        line.setName(name);
+        line.setCategory(category);
+        line.setQuantity(quantity);
+        line.setUnitPrice(unitPrice);
+        return line;
+    }
+
+    public OrderItem toOrderItem(String orderId) {
+        OrderItem item = new OrderItem();
+        item.setId(id);
+        item.setOrderId(orderId);
+        item.setMenuItemId(menuItemId);
+        item.setQuantity(quantity);
+        item.setUnitPrice(unitPrice);
+        return item;
+    }
+
+    public BigDecimal getSubtotal() {
+        if (unitPrice != null && quantity != null) {
+            return unitPrice.multiply(BigDecimal.valueOf(quantity));
+        }
+        return BigDecimal.ZERO;
+    }
+}
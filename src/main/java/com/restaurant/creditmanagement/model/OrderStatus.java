@@ -1,7 +1,49 @@
 package com.restaurant.creditmanagement.model;
 
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Order lifecycle. Each status lists the statuses an order may move to it from; transitions are
+ * applied by a conditional update that matches only those source statuses.
+ */
 public enum OrderStatus {
     PENDING,
-    FULFILLED,
-    CANCELLED
-}
\ No newline at end of file
+    APPROVED,
+    COMPLETED,
+    CANCELLED;
+
+    // Statuses whose lines may still be edited
+    public static final Set<OrderStatus> EDITABLE = Collections.unmodifiableSet(EnumSet.of(PENDING, APPROVED));
+
+    public static boolean isEditable(String status) {
+        return EDITABLE.stream().anyMatch(editable -> editable.name().equals(status));
+    }
+
+    public static String editError(String currentStatus) {
+        return "Only " + EDITABLE.stream().map(Enum::name).collect(Collectors.joining(" or "))
+                + " orders can be edited, it is " + currentStatus;
+    }
+
+    public Set<OrderStatus> allowedSources() {
+        switch (this) {
+            case APPROVED:
+                return Collections.unmodifiableSet(EnumSet.of(PENDING));
+            case COMPLETED:
+                return Collections.unmodifiableSet(EnumSet.of(APPROVED));
+            case CANCELLED:
+                return Collections.unmodifiableSet(EnumSet.of(PENDING, APPROVED));
+            default:
+                return Collections.emptySet();
+        }
+    }
+
+    // e.g. "Order can only be moved to COMPLETED from APPROVED status"
+    public String transitionError(String currentStatus) {
+        return "Order can only be moved to " + name() + " from "
+                + allowedSources().stream().map(Enum::name).collect(Collectors.joining(" or "))
+                + " status, it is " + currentStatus;
+    }
+}
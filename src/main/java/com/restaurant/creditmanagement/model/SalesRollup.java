@@ -0,0 +1,27 @@
+package com.restaurant.creditmanagement.model;
+
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+import java.math.BigDecimal;
+
+// Sales for one admin in one hour of one day; the id is "adminId:yyyy-MM-dd:HH"
+@Data
+@Document(collection = "sales_rollups")
+@CompoundIndex(name = "admin_day_hour", def = "{'adminId': 1, 'day': 1, 'hour': 1}")
+public class SalesRollup {
+    @Id
+    private String id;
+
+    private String adminId;
+    private String day;
+    private int hour;
+    private String dayOfWeek;
+
+    private long orderCount;
+    private BigDecimal revenue = BigDecimal.ZERO;
+
+    // Bumped by every delta, so a rebuild only replaces a bucket nothing has written to meanwhile
+    private long version;
+}
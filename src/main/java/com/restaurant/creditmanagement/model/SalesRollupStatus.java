@@ -0,0 +1,16 @@
+package com.restaurant.creditmanagement.model;
+
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+import java.time.LocalDateTime;
+
+// Marks an admin's sales rollups as rebuilt from the full order history at least once
+@Data
+@Document(collection = "sales_rollup_status")
+public class SalesRollupStatus {
+    @Id
+    private String adminId;
+
+    private LocalDateTime rebuiltAt;
+}
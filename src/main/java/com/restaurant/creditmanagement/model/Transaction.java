@@ -1,11 +1,19 @@
 package com.restaurant.creditmanagement.model;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.Document;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Document(collection = "transactions")
+@CompoundIndexes({
+        @CompoundIndex(name = "admin_idempotency_key", def = "{'adminId': 1, 'idempotencyKey': 1}",
+                unique = true, partialFilter = "{ 'idempotencyKey': { $exists: true } }"),
+        // Date-range exports walk this instead of sorting the admin's transactions in memory
+        @CompoundIndex(name = "admin_transaction_date_id", def = "{'adminId': 1, 'transactionDate': -1, '_id': -1}")
+})
 public class Transaction {
     @Id
     private String id;
@@ -24,6 +32,9 @@ public class Transaction {
 
     private LocalDateTime transactionDate;
 
+    // Client-supplied key that makes retried settlements a no-op
+    private String idempotencyKey;
+
     // Getters and Setters
     public String getId() {
         return id;
@@ -88,4 +99,12 @@ public class Transaction {
     public void setTransactionDate(LocalDateTime transactionDate) {
         this.transactionDate = transactionDate;
     }
+
+    public String getIdempotencyKey() {
+        return idempotencyKey;
+    }
+
+    public void setIdempotencyKey(String idempotencyKey) {
+        this.idempotencyKey = idempotencyKey;
+    }
 }
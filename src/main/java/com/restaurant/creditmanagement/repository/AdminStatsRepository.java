@@ -0,0 +1,9 @@
+package com.restaurant.creditmanagement.repository;
+
+import com.restaurant.creditmanagement.model.AdminStats;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface AdminStatsRepository extends MongoRepository<AdminStats, String> {
+}
@@ -0,0 +1,22 @@
+package com.restaurant.creditmanagement.repository;
+
+import org.bson.types.Decimal128;
+
+import java.math.BigDecimal;
+
+final class AggregationValues {
+
+    private AggregationValues() {
+    }
+
+    // $sum over Decimal128 fields yields Decimal128; an empty match yields no document at all
+    static BigDecimal toBigDecimal(Object value) {
+        if (value instanceof Decimal128) {
+            return ((Decimal128) value).bigDecimalValue();
+        }
+        if (value instanceof Number) {
+            return new BigDecimal(value.toString());
+        }
+        return BigDecimal.ZERO;
+    }
+}
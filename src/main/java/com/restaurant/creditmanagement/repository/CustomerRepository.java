@@ -1,23 +1,40 @@
 package com.restaurant.creditmanagement.repository;
 
 import com.restaurant.creditmanagement.model.Customer;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
 import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
-public interface CustomerRepository extends MongoRepository<Customer, String> {
+public interface CustomerRepository extends MongoRepository<Customer, String>, CustomerRepositoryCustom {
     List<Customer> findByAdminId(String adminId);
 
-    @Query("{ 'name': { $regex: ?0, $options: 'i' }, 'adminId': ?1 }")
-    List<Customer> searchByName(String query, String adminId);
+    @Query(value = "{ 'adminId': ?0 }", fields = "{ 'name': 1, 'phone': 1, 'email': 1 }")
+    List<Customer> findSearchFieldsByAdminId(String adminId);
+
+    // Range scan over the (adminId, normalizedName) index: every name in [from, to) shares the prefix
+    @Query("{ 'adminId': ?0, 'normalizedName': { $gte: ?1, $lt: ?2 } }")
+    List<Customer> findByNormalizedNameRange(String adminId, String from, String to, Pageable pageable);
 
     List<Customer> findTop5ByAdminIdOrderByCreditBalanceDesc(String adminId);
 
     @Query(value = "{ 'adminId': ?0 }", fields = "{ 'creditBalance': 1 }")
     List<Customer> findCreditBalancesByAdminId(String adminId);
 
+    @Query(value = "{ '_id': { $in: ?0 }, 'adminId': ?1 }", fields = "{ 'name': 1 }")
+    List<Customer> findNamesByIdIn(Collection<String> ids, String adminId);
+
+    @Query(value = "{ 'adminId': ?0 }", fields = "{ 'orderCount': 1 }")
+    List<Customer> findOrderCountsByAdminId(String adminId);
+
+    @Query(value = "{ 'adminId': ?0 }", fields = "{ '_id': 1 }")
+    List<Customer> findIdsByAdminId(String adminId);
+
     long countByAdminId(String adminId);
+
+    boolean existsByIdAndAdminId(String id, String adminId);
 }
@@ -0,0 +1,73 @@
+package com.restaurant.creditmanagement.repository;
+
+import com.restaurant.creditmanagement.dto.CursorPage;
+import com.restaurant.creditmanagement.dto.CustomerSort;
+import com.restaurant.creditmanagement.dto.PageCursor;
+import com.restaurant.creditmanagement.model.Customer;
+import com.restaurant.creditmanagement.model.Order;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface CustomerRepositoryCustom {
+    /**
+     * One keyset page of the admin's customers in {@code sort} order, with only the list-view
+     * fields loaded. {@code outstandingOnly} keeps customers with a positive balance.
+     */
+    CursorPage<Customer> findCustomerPage(String adminId, CustomerSort sort, boolean outstandingOnly,
+                                          PageCursor after, int size);
+
+    /**
+     * Atomically adds {@code amount} to the customer's creditBalance, but only if the new
+     * balance stays within totalCredit. Returns the updated customer, or null if the customer
+     * doesn't exist for this admin or the limit would be exceeded.
+     */
+    Customer reserveCredit(String customerId, String adminId, BigDecimal amount);
+
+    /**
+     * Atomically subtracts {@code amount} from the customer's creditBalance, but only if the
+     * balance covers it and, when {@code idempotencyKey} is given, the key isn't among the
+     * customer's recent settlement keys; the key is recorded in the same update. Returns the
+     * updated customer, or null if nothing matched.
+     */
+    Customer applySettlement(String customerId, String adminId, BigDecimal amount, String idempotencyKey);
+
+    /** Reverses {@link #applySettlement} for a settlement whose key turned out to be used already. */
+    void revertSettlement(String customerId, String adminId, BigDecimal amount, String idempotencyKey);
+
+    /** Bumps the customer's order count and lifetime spend and advances lastOrderAt. */
+    void recordOrderPlaced(String customerId, BigDecimal amount, LocalDateTime orderedAt);
+
+    /**
+     * {@link #recordOrderPlaced} for a batch of new orders: one update per customer with the
+     * batch's order count and spend summed, in one unordered bulk write.
+     */
+    void recordOrdersPlaced(List<Order> orders);
+
+    /** Adjusts lifetimeSpend when an existing order's total changes. */
+    void recordSpendChange(String customerId, BigDecimal delta);
+
+    /** Reverses {@link #recordOrderPlaced} for a deleted order. */
+    void recordOrderRemoved(String customerId, BigDecimal amount);
+
+    /**
+     * Sets the editable profile fields without touching balances or stats. When a new
+     * totalCredit is given, it only applies if it still covers the current balance.
+     * Returns the updated customer, or null if nothing matched.
+     */
+    Customer updateProfile(String customerId, String adminId, Customer changes);
+
+    /**
+     * Recomputes the admin's customers' orderCount, lifetimeSpend, lastOrderAt and
+     * lastSettlementAt from the orders and transactions collections while live writes go on;
+     * no customer is reset first, and none is overwritten after a concurrent stats update.
+     */
+    void rebuildStats(String adminId);
+
+    /** Gives back credit taken by {@link #reserveCredit} when the order could not be written. */
+    void releaseCredit(String customerId, String adminId, BigDecimal amount);
+
+    /** Sum of the positive credit balances of the admin's customers, computed with $sum. */
+    BigDecimal sumOutstandingCredit(String adminId);
+}
@@ -0,0 +1,350 @@
+package com.restaurant.creditmanagement.repository;
+
+import com.restaurant.creditmanagement.dto.CursorPage;
+import com.restaurant.creditmanagement.dto.CustomerSort;
+import com.restaurant.creditmanagement.dto.PageCursor;
+import com.restaurant.creditmanagement.model.Customer;
+import com.restaurant.creditmanagement.model.Order;
+import com.restaurant.creditmanagement.model.Transaction;
+import com.restaurant.creditmanagement.model.TransactionType;
+import org.bson.Document;
+import org.bson.types.Decimal128;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.BasicQuery;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+public class CustomerRepositoryImpl implements CustomerRepositoryCustom {
+    // How many settlement keys each customer remembers; older retries fall back to the transaction index
+    private static final int SETTLEMENT_KEYS_KEPT = 100;
+    private static final int STATS_BATCH_SIZE = 500;
+    private static final int MAX_STATS_ATTEMPTS = 5;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Override
+    public CursorPage<Customer> findCustomerPage(String adminId, CustomerSort sort, boolean outstandingOnly,
+                                                 PageCursor after, int size) {
+        List<Criteria> criteria = new ArrayList<>();
+        criteria.add(Criteria.where("adminId").is(adminId));
+        if (outstandingOnly) {
+            criteria.add(Criteria.where("creditBalance").gt(BigDecimal.ZERO));
+        }
+        if (after != null) {
+            criteria.add(afterCursor(sort, after));
+        }
+
+        Query query = new Query(new Criteria().andOperator(criteria.toArray(new Criteria[0])))
+                .with(Sort.by(sort.getDirection(), sort.getField(), "id"))
+                .limit(size + 1);
+        query.fields().include("name", "normalizedName", "phone", "email", "totalCredit", "creditBalance",
+                "createdAt", "active", "adminId");
+
+        List<Customer> customers = mongoTemplate.find(query, Customer.class);
+        String nextCursor = null;
+        if (customers.size() > size) {
+            customers = new ArrayList<>(customers.subList(0, size));
+            Customer last = customers.get(size - 1);
+            nextCursor = new PageCursor(sort.cursorValue(last), last.getId()).encode();
+        }
+        return new CursorPage<>(customers, nextCursor);
+    }
+
+    // Rows strictly after (value, _id) in the sort's direction
+    private Criteria afterCursor(CustomerSort sort, PageCursor after) {
+        if (!ObjectId.isValid(after.getId())) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        ObjectId lastId = new ObjectId(after.getId());
+        String field = sort.getField();
+        Object lastValue = sort.parseCursorValue(after.getValue());
+
+        if (sort.getDirection() == Sort.Direction.ASC) {
+            // Only the name sorts ascending, and every customer has a normalizedName
+            return new Criteria().orOperator(
+                    Criteria.where(field).gt(lastValue),
+                    Criteria.where(field).is(lastValue).and("id").gt(lastId));
+        }
+        if (lastValue == null) {
+            // Missing values sort last when descending; only the id tie-breaker is left
+            return Criteria.where(field).is(null).and("id").lt(lastId);
+        }
+        return new Criteria().orOperator(
+                Criteria.where(field).lt(lastValue),
+                Criteria.where(field).is(lastValue).and("id").lt(lastId),
+                Criteria.where(field).is(null));
+    }
+
+    @Override
+    public Customer reserveCredit(String customerId, String adminId, BigDecimal amount) {
+        Document newBalance = new Document("$add", Arrays.asList(
+                new Document("$ifNull", Arrays.asList("$creditBalance", new Decimal128(BigDecimal.ZERO))),
+                new Decimal128(amount)));
+        // A limit still stored as a string would compare above any number, so it never matches
+        Query query = new BasicQuery(new Document("_id", customerId)
+                .append("adminId", adminId)
+                .append("$expr", new Document("$and", Arrays.asList(
+                        new Document("$isNumber", "$totalCredit"),
+                        new Document("$lte", Arrays.asList(newBalance, "$totalCredit"))))));
+
+        return mongoTemplate.findAndModify(query,
+                new Update().inc("creditBalance", amount),
+                FindAndModifyOptions.options().returnNew(true),
+                Customer.class);
+    }
+
+    @Override
+    public Customer applySettlement(String customerId, String adminId, BigDecimal amount, String idempotencyKey) {
+        Criteria criteria = Criteria.where("id").is(customerId)
+                .and("adminId").is(adminId)
+                .and("creditBalance").gte(amount);
+        Update update = new Update().inc("creditBalance", amount.negate()).set("lastSettlementAt", LocalDateTime.now())
+                .inc("statsVersion", 1);
+        if (idempotencyKey != null) {
+            criteria = criteria.and("settlementKeys").ne(idempotencyKey);
+            update.push("settlementKeys").slice(-SETTLEMENT_KEYS_KEPT).each(idempotencyKey);
+        }
+
+        return mongoTemplate.findAndModify(Query.query(criteria), update,
+                FindAndModifyOptions.options().returnNew(true),
+                Customer.class);
+    }
+
+    @Override
+    public void revertSettlement(String customerId, String adminId, BigDecimal amount, String idempotencyKey) {
+        Update update = new Update().inc("creditBalance", amount);
+        if (idempotencyKey != null) {
+            update.pull("settlementKeys", idempotencyKey);
+        }
+        mongoTemplate.updateFirst(
+                Query.query(Criteria.where("id").is(customerId).and("adminId").is(adminId)),
+                update, Customer.class);
+    }
+
+    @Override
+    public void recordOrderPlaced(String customerId, BigDecimal amount, LocalDateTime orderedAt) {
+        Update update = new Update().inc("orderCount", 1).inc("lifetimeSpend", amount).inc("statsVersion", 1);
+        if (orderedAt != null) {
+            update.max("lastOrderAt", orderedAt);
+        }
+        mongoTemplate.updateFirst(Query.query(Criteria.where("id").is(customerId)), update, Customer.class);
+    }
+
+    @Override
+    public void recordOrdersPlaced(List<Order> orders) {
+        Map<String, Integer> counts = new HashMap<>();
+        Map<String, BigDecimal> spend = new HashMap<>();
+        Map<String, LocalDateTime> lastOrderAt = new HashMap<>();
+        for (Order order : orders) {
+            if (order.getCustomerId() == null) {
+                continue;
+            }
+            counts.merge(order.getCustomerId(), 1, Integer::sum);
+            spend.merge(order.getCustomerId(),
+                    order.getTotalAmount() != null ? order.getTotalAmount() : BigDecimal.ZERO, BigDecimal::add);
+            if (order.getCreatedAt() != null) {
+                lastOrderAt.merge(order.getCustomerId(), order.getCreatedAt(), (a, b) -> a.isAfter(b) ? a : b);
+            }
+        }
+        if (counts.isEmpty()) {
+            return;
+        }
+
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Customer.class);
+        for (Map.Entry<String, Integer> entry : counts.entrySet()) {
+            String customerId = entry.getKey();
+            Update update = new Update()
+                    .inc("orderCount", entry.getValue())
+                    .inc("lifetimeSpend", spend.get(customerId))
+                    .inc("statsVersion", 1);
+            if (lastOrderAt.containsKey(customerId)) {
+                update.max("lastOrderAt", lastOrderAt.get(customerId));
+            }
+            bulk.updateOne(Query.query(Criteria.where("id").is(customerId)), update);
+        }
+        bulk.execute();
+    }
+
+    @Override
+    public void recordSpendChange(String customerId, BigDecimal delta) {
+        mongoTemplate.updateFirst(Query.query(Criteria.where("id").is(customerId)),
+                new Update().inc("lifetimeSpend", delta).inc("statsVersion", 1), Customer.class);
+    }
+
+    @Override
+    public void recordOrderRemoved(String customerId, BigDecimal amount) {
+        mongoTemplate.updateFirst(Query.query(Criteria.where("id").is(customerId)),
+                new Update().inc("orderCount", -1).inc("lifetimeSpend", amount.negate()).inc("statsVersion", 1),
+                Customer.class);
+    }
+
+    @Override
+    public Customer updateProfile(String customerId, String adminId, Customer changes) {
+        Criteria criteria = Criteria.where("id").is(customerId).and("adminId").is(adminId);
+        Update update = new Update()
+                .set("name", changes.getName())
+                .set("normalizedName", changes.getNormalizedName())
+                .set("phone", changes.getPhone())
+                .set("email", changes.getEmail())
+                .set("address", changes.getAddress());
+        if (changes.getTotalCredit() != null) {
+            criteria = criteria.and("creditBalance").lte(changes.getTotalCredit());
+            update.set("totalCredit", changes.getTotalCredit());
+        }
+
+        return mongoTemplate.findAndModify(Query.query(criteria), update,
+                FindAndModifyOptions.options().returnNew(true), Customer.class);
+    }
+
+    /*
+     * Every live stats write bumps statsVersion. The versions are read before the orders and
+     * transactions, and each customer is only overwritten if its version hasn't moved since, so
+     * a concurrent $inc is never lost; a customer that moved is recomputed on its own.
+     */
+    @Override
+    public void rebuildStats(String adminId) {
+        Query customersQuery = Query.query(Criteria.where("adminId").is(adminId));
+        customersQuery.fields().include("statsVersion");
+        Map<String, Long> versions = new LinkedHashMap<>();
+        for (Customer customer : mongoTemplate.find(customersQuery, Customer.class)) {
+            versions.put(customer.getId(), customer.getStatsVersion());
+        }
+
+        Map<String, Document> orderStats = groupByCustomer(new Document("adminId", adminId));
+        Map<String, Object> lastSettlements = lastSettlementByCustomer(new Document("adminId", adminId));
+
+        List<String> ids = new ArrayList<>(versions.keySet());
+        for (int from = 0; from < ids.size(); from += STATS_BATCH_SIZE) {
+            List<String> batch = ids.subList(from, Math.min(from + STATS_BATCH_SIZE, ids.size()));
+            BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Customer.class);
+            for (String id : batch) {
+                bulk.updateOne(atStatsVersion(id, versions.get(id)),
+                        statsUpdate(orderStats.get(id), lastSettlements.get(id)));
+            }
+            if (bulk.execute().getMatchedCount() == batch.size()) {
+                continue;
+            }
+            Query moved = Query.query(Criteria.where("id").in(batch));
+            moved.fields().include("statsVersion");
+            for (Customer customer : mongoTemplate.find(moved, Customer.class)) {
+                if (!Objects.equals(customer.getStatsVersion(), versions.get(customer.getId()))) {
+                    rebuildCustomerStats(adminId, customer.getId());
+                }
+            }
+        }
+    }
+
+    private void rebuildCustomerStats(String adminId, String customerId) {
+        for (int attempt = 0; attempt < MAX_STATS_ATTEMPTS; attempt++) {
+            Query query = Query.query(Criteria.where("id").is(customerId));
+            query.fields().include("statsVersion");
+            Customer current = mongoTemplate.findOne(query, Customer.class);
+            if (current == null) {
+                return;
+            }
+            Document scope = new Document("adminId", adminId).append("customerId", customerId);
+            Update update = statsUpdate(groupByCustomer(scope).get(customerId), lastSettlementByCustomer(scope).get(customerId));
+            if (mongoTemplate.updateFirst(atStatsVersion(customerId, current.getStatsVersion()), update,
+                    Customer.class).getMatchedCount() == 1) {
+                return;
+            }
+        }
+    }
+
+    private static Query atStatsVersion(String customerId, Long version) {
+        Criteria criteria = Criteria.where("id").is(customerId);
+        return Query.query(version != null ? criteria.and("statsVersion").is(version)
+                : criteria.and("statsVersion").exists(false));
+    }
+
+    // A customer without orders or settlements gets zeroed counters and no last dates
+    private static Update statsUpdate(Document orders, Object lastSettlementAt) {
+        Update update = new Update()
+                .set("orderCount", orders != null ? ((Number) orders.get("orderCount")).longValue() : 0L)
+                .set("lifetimeSpend", AggregationValues.toBigDecimal(orders != null ? orders.get("lifetimeSpend") : null));
+        if (orders != null && orders.get("lastOrderAt") != null) {
+            update.set("lastOrderAt", orders.get("lastOrderAt"));
+        } else {
+            update.unset("lastOrderAt");
+        }
+        if (lastSettlementAt != null) {
+            update.set("lastSettlementAt", lastSettlementAt);
+        } else {
+            update.unset("lastSettlementAt");
+        }
+        return update;
+    }
+
+    private Map<String, Document> groupByCustomer(Document match) {
+        Map<String, Document> stats = new HashMap<>();
+        mongoTemplate.getCollection(mongoTemplate.getCollectionName(Order.class))
+                .aggregate(Arrays.asList(
+                        new Document("$match", match),
+                        new Document("$group", new Document("_id", "$customerId")
+                                .append("orderCount", new Document("$sum", 1))
+                                .append("lifetimeSpend", new Document("$sum", new Document("$toDecimal", "$totalAmount")))
+                                .append("lastOrderAt", new Document("$max", "$createdAt")))))
+                .allowDiskUse(true)
+                .forEach(row -> {
+                    if (row.get("_id") != null) {
+                        stats.put(row.get("_id").toString(), row);
+                    }
+                });
+        return stats;
+    }
+
+    private Map<String, Object> lastSettlementByCustomer(Document match) {
+        Map<String, Object> lastSettlements = new HashMap<>();
+        mongoTemplate.getCollection(mongoTemplate.getCollectionName(Transaction.class))
+                .aggregate(Arrays.asList(
+                        new Document("$match", new Document(match).append("type", TransactionType.SETTLEMENT.toString())),
+                        new Document("$group", new Document("_id", "$customerId")
+                                .append("lastSettlementAt", new Document("$max", "$transactionDate")))))
+                .forEach(row -> {
+                    if (row.get("_id") != null) {
+                        lastSettlements.put(row.get("_id").toString(), row.get("lastSettlementAt"));
+                    }
+                });
+        return lastSettlements;
+    }
+
+    @Override
+    public void releaseCredit(String customerId, String adminId, BigDecimal amount) {
+        mongoTemplate.updateFirst(
+                Query.query(Criteria.where("id").is(customerId).and("adminId").is(adminId)),
+                new Update().inc("creditBalance", amount.negate()),
+                Customer.class);
+    }
+
+    @Override
+    public BigDecimal sumOutstandingCredit(String adminId) {
+        Document match = new Document("adminId", adminId)
+                .append("creditBalance", new Document("$gt", new Decimal128(BigDecimal.ZERO)));
+
+        Document result = mongoTemplate.getCollection(mongoTemplate.getCollectionName(Customer.class))
+                .aggregate(Arrays.asList(
+                        new Document("$match", match),
+                        new Document("$group", new Document("_id", null)
+                                .append("total", new Document("$sum", "$creditBalance")))))
+                .first();
+
+        return AggregationValues.toBigDecimal(result != null ? result.get("total") : null);
+    }
+}
@@ -3,10 +3,14 @@ package com.restaurant.creditmanagement.repository;
 import com.restaurant.creditmanagement.model.MenuItem;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.stereotype.Repository;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface MenuItemRepository extends MongoRepository<MenuItem, String> {
     List<MenuItem> findByAdminId(String adminId);
     List<MenuItem> findByCategoryOrderByName(String category);
+    Optional<MenuItem> findByIdAndAdminId(String id, String adminId);
+    List<MenuItem> findByIdInAndAdminId(Collection<String> ids, String adminId);
 }
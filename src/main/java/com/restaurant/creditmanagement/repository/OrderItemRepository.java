@@ -4,9 +4,11 @@ import com.restaurant.creditmanagement.model.OrderItem;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
-public interface OrderItemRepository extends MongoRepository<OrderItem, String> {
-    List<OrderItem> findByOrderId(String orderId);
+public interface OrderItemRepository extends MongoRepository<OrderItem, String>, OrderItemRepositoryCustom {
+    List<OrderItem> findByOrderIdIn(Collection<String> orderIds);
+    void deleteByOrderId(String orderId);
 }
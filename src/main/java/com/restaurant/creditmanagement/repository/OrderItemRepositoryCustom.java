@@ -0,0 +1,11 @@
+package com.restaurant.creditmanagement.repository;
+
+import java.util.Map;
+
+public interface OrderItemRepositoryCustom {
+    /**
+     * Sets the quantity of several lines of one order with a single unordered bulk write.
+     * Lines are matched on both their id and the orderId. Returns the number of lines matched.
+     */
+    int updateQuantities(String orderId, Map<String, Integer> quantities);
+}
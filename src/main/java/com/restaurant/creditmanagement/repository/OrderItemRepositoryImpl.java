@@ -0,0 +1,29 @@
+package com.restaurant.creditmanagement.repository;
+
+import com.restaurant.creditmanagement.model.OrderItem;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.Map;
+
+public class OrderItemRepositoryImpl implements OrderItemRepositoryCustom {
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Override
+    public int updateQuantities(String orderId, Map<String, Integer> quantities) {
+        if (quantities.isEmpty()) {
+            return 0;
+        }
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, OrderItem.class);
+        quantities.forEach((orderItemId, quantity) -> bulk.updateOne(
+                Query.query(Criteria.where("id").is(orderItemId).and("orderId").is(orderId)),
+                new Update().set("quantity", quantity)));
+        return bulk.execute().getMatchedCount();
+    }
+}
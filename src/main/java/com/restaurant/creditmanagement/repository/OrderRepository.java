@@ -2,17 +2,21 @@ package com.restaurant.creditmanagement.repository;
 
 import com.restaurant.creditmanagement.model.Order;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
-public interface OrderRepository extends MongoRepository<Order, String> {
+public interface OrderRepository extends MongoRepository<Order, String>, OrderRepositoryCustom {
     List<Order> findByAdminId(String adminId);
+    // Just what the sales rollups need
+    @Query(value = "{ 'adminId': ?0 }", fields = "{ 'adminId': 1, 'orderDate': 1, 'createdAt': 1, 'totalAmount': 1 }")
+    Stream<Order> streamTotalsByAdminId(String adminId);
     Long countByAdminId(String adminId);
     List<Order> findByAdminIdAndPaymentMethod(String adminId, String paymentMethod);
     List<Order> findByAdminIdOrderByCreatedAtDesc(String adminId);
-    Integer countByCustomerId(String customerId);
 
     // Add this new method
     List<Order> findTop5ByAdminIdOrderByCreatedAtDesc(String adminId);
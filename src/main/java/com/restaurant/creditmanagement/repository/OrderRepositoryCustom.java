@@ -0,0 +1,71 @@
+package com.restaurant.creditmanagement.repository;
+
+import com.restaurant.creditmanagement.dto.CursorPage;
+import com.restaurant.creditmanagement.dto.OrderFilter;
+import com.restaurant.creditmanagement.dto.PageCursor;
+import com.restaurant.creditmanagement.model.Order;
+import com.restaurant.creditmanagement.model.OrderLine;
+import com.restaurant.creditmanagement.model.OrderStatus;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+public interface OrderRepositoryCustom {
+    /**
+     * One page of the admin's orders, newest first, keyset-paginated on (createdAt, _id).
+     * orderItemIds, lines and notes are only loaded when {@code includeDetails} is set.
+     */
+    CursorPage<Order> findOrderPage(String adminId, OrderFilter filter, PageCursor after, int size,
+                                    boolean includeDetails);
+
+    /**
+     * Sets the order's totalAmount and bumps its version, but only while the order is still at
+     * {@code expectedVersion} and in an {@link OrderStatus#EDITABLE} status, so a total computed
+     * from a read can't overwrite one written concurrently or land on a closed order. Returns
+     * the updated order, or null if nothing matched.
+     */
+    Order updateTotalAmount(String orderId, String adminId, Long expectedVersion, BigDecimal newTotal);
+
+    /**
+     * Puts back a total written by {@link #updateTotalAmount} whose follow-up write failed.
+     * Guarded on the version only, since the order may have been closed in between.
+     */
+    Order restoreTotalAmount(String orderId, String adminId, Long expectedVersion, BigDecimal total);
+
+    /**
+     * Replaces the order's embedded lines and totalAmount together, with the same version and
+     * status guard as {@link #updateTotalAmount}. Returns the updated order, or null if nothing
+     * matched.
+     */
+    Order updateLines(String orderId, String adminId, Long expectedVersion, List<OrderLine> lines,
+                      BigDecimal newTotal);
+
+    /**
+     * Sets paymentMethod and notes with one findAndModify on the id and the admin, touching no
+     * other field. Returns the updated order, or null if nothing matched.
+     */
+    Order updateDetails(String orderId, String adminId, String paymentMethod, String notes);
+
+    /**
+     * Moves the order to {@code target} with one findAndModify that matches the id, the admin and
+     * the target's allowed source statuses, and sets only status and statusUpdatedAt. Returns the
+     * updated order, or null if the order is missing or not in an allowed status.
+     */
+    Order transitionStatus(String orderId, String adminId, OrderStatus target);
+
+    /** Sum of totalAmount over the admin's orders, optionally for one payment method, computed with $sum. */
+    BigDecimal sumTotalAmount(String adminId, String paymentMethod);
+
+    /**
+     * Quantity and revenue per menu item name, grouped inside Mongo.
+     * {@code sortBy} is "quantity" or "revenue"; a {@code limit} of 0 returns every row.
+     */
+    List<Map<String, Object>> aggregateTopSellingItems(String adminId, String sortBy, int limit);
+
+    /**
+     * Order lines and revenue per menu category, grouped inside Mongo.
+     * {@code sortBy} is "orders" or "revenue"; a {@code limit} of 0 returns every row.
+     */
+    List<Map<String, Object>> aggregateCategoryPerformance(String adminId, String sortBy, int limit);
+}
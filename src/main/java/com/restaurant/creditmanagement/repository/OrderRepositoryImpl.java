@@ -0,0 +1,303 @@
+package com.restaurant.creditmanagement.repository;
+
+import com.restaurant.creditmanagement.config.OrderLineStorage;
+import com.restaurant.creditmanagement.dto.CursorPage;
+import com.restaurant.creditmanagement.dto.OrderFilter;
+import com.restaurant.creditmanagement.dto.PageCursor;
+import com.restaurant.creditmanagement.model.MenuItem;
+import com.restaurant.creditmanagement.model.Order;
+import com.restaurant.creditmanagement.model.OrderItem;
+import com.restaurant.creditmanagement.model.OrderLine;
+import com.restaurant.creditmanagement.model.OrderStatus;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+public class OrderRepositoryImpl implements OrderRepositoryCustom {
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private OrderLineStorage orderLineStorage;
+
+    @Override
+    public CursorPage<Order> findOrderPage(String adminId, OrderFilter filter, PageCursor after, int size,
+                                           boolean includeDetails) {
+        List<Criteria> criteria = new ArrayList<>();
+        criteria.add(Criteria.where("adminId").is(adminId));
+        if (filter.getStatus() != null) {
+            criteria.add(Criteria.where("status").is(filter.getStatus()));
+        }
+        if (filter.getPaymentMethod() != null) {
+            criteria.add(Criteria.where("paymentMethod").is(filter.getPaymentMethod()));
+        }
+        if (filter.getFrom() != null) {
+            criteria.add(Criteria.where("createdAt").gte(filter.getFrom()));
+        }
+        if (filter.getTo() != null) {
+            criteria.add(Criteria.where("createdAt").lt(filter.getTo()));
+        }
+        if (after != null) {
+            criteria.add(afterCursor(after));
+        }
+
+        Query query = new Query(new Criteria().andOperator(criteria.toArray(new Criteria[0])))
+                .with(Sort.by(Sort.Direction.DESC, "createdAt", "id"))
+                .limit(size + 1);
+        if (!includeDetails) {
+            query.fields().exclude("orderItemIds").exclude("lines").exclude("notes");
+        }
+
+        List<Order> orders = mongoTemplate.find(query, Order.class);
+        String nextCursor = null;
+        if (orders.size() > size) {
+            orders = new ArrayList<>(orders.subList(0, size));
+            Order last = orders.get(size - 1);
+            nextCursor = new PageCursor(last.getCreatedAt() != null ? last.getCreatedAt().toString() : null,
+                    last.getId()).encode();
+        }
+        return new CursorPage<>(orders, nextCursor);
+    }
+
+    // Rows strictly after (createdAt, _id) in descending order
+    private Criteria afterCursor(PageCursor after) {
+        if (!ObjectId.isValid(after.getId())) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        ObjectId lastId = new ObjectId(after.getId());
+        if (after.getValue() == null) {
+            // Orders without createdAt sort last; only the id tie-breaker is left
+            return Criteria.where("createdAt").is(null).and("id").lt(lastId);
+        }
+
+        LocalDateTime lastCreatedAt;
+        try {
+            lastCreatedAt = LocalDateTime.parse(after.getValue());
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        return new Criteria().orOperator(
+                Criteria.where("createdAt").lt(lastCreatedAt),
+                Criteria.where("createdAt").is(lastCreatedAt).and("id").lt(lastId),
+                Criteria.where("createdAt").is(null));
+    }
+
+    @Override
+    public Order updateTotalAmount(String orderId, String adminId, Long expectedVersion, BigDecimal newTotal) {
+        Update update = new Update()
+                .set("totalAmount", newTotal)
+                .set("version", nextVersion(expectedVersion));
+        return mongoTemplate.findAndModify(editableAtVersion(orderId, adminId, expectedVersion), update,
+                FindAndModifyOptions.options().returnNew(true), Order.class);
+    }
+
+    @Override
+    public Order restoreTotalAmount(String orderId, String adminId, Long expectedVersion, BigDecimal total) {
+        Query query = Query.query(Criteria.where("id").is(orderId)
+                .and("adminId").is(adminId)
+                .and("version").is(expectedVersion));
+        Update update = new Update()
+                .set("totalAmount", total)
+                .set("version", nextVersion(expectedVersion));
+        return mongoTemplate.findAndModify(query, update, FindAndModifyOptions.options().returnNew(true), Order.class);
+    }
+
+    @Override
+    public Order updateLines(String orderId, String adminId, Long expectedVersion, List<OrderLine> lines,
+                             BigDecimal newTotal) {
+        Update update = new Update()
+                .set("lines", lines)
+                .set("totalAmount", newTotal)
+                .set("version", nextVersion(expectedVersion));
+        return mongoTemplate.findAndModify(editableAtVersion(orderId, adminId, expectedVersion), update,
+                FindAndModifyOptions.options().returnNew(true), Order.class);
+    }
+
+    // A null version matches orders written before versions existed
+    private static Query editableAtVersion(String orderId, String adminId, Long expectedVersion) {
+        List<String> statuses = new ArrayList<>();
+        for (OrderStatus status : OrderStatus.EDITABLE) {
+            statuses.add(status.name());
+        }
+        return Query.query(Criteria.where("id").is(orderId)
+                .and("adminId").is(adminId)
+                .and("version").is(expectedVersion)
+                .and("status").in(statuses));
+    }
+
+    private static long nextVersion(Long version) {
+        return version != null ? version + 1 : 1;
+    }
+
+    @Override
+    public Order updateDetails(String orderId, String adminId, String paymentMethod, String notes) {
+        Query query = Query.query(Criteria.where("id").is(orderId).and("adminId").is(adminId));
+        Update update = new Update().set("paymentMethod", paymentMethod).set("notes", notes);
+        return mongoTemplate.findAndModify(query, update, FindAndModifyOptions.options().returnNew(true), Order.class);
+    }
+
+    @Override
+    public Order transitionStatus(String orderId, String adminId, OrderStatus target) {
+        List<String> sources = new ArrayList<>();
+        for (OrderStatus source : target.allowedSources()) {
+            sources.add(source.name());
+        }
+        Query query = Query.query(Criteria.where("id").is(orderId)
+                .and("adminId").is(adminId)
+                .and("status").in(sources));
+        Update update = new Update()
+                .set("status", target.name())
+                .set("statusUpdatedAt", LocalDateTime.now());
+        return mongoTemplate.findAndModify(query, update, FindAndModifyOptions.options().returnNew(true), Order.class);
+    }
+
+    @Override
+    public BigDecimal sumTotalAmount(String adminId, String paymentMethod) {
+        Document match = new Document("adminId", adminId);
+        if (paymentMethod != null) {
+            match.append("paymentMethod", paymentMethod);
+        }
+
+        Document result = mongoTemplate.getCollection(mongoTemplate.getCollectionName(Order.class))
+                .aggregate(Arrays.asList(
+                        new Document("$match", match),
+                        new Document("$group", new Document("_id", null)
+                                .append("total", new Document("$sum", "$totalAmount")))))
+                .first();
+
+        return AggregationValues.toBigDecimal(result != null ? result.get("total") : null);
+    }
+
+    @Override
+    public List<Map<String, Object>> aggregateTopSellingItems(String adminId, String sortBy, int limit) {
+        String sortField = "revenue".equals(sortBy) ? "revenue" : "quantity";
+
+        List<Document> pipeline = menuItemTotals(adminId);
+        pipeline.add(new Document("$group", new Document("_id", "$menuItem.name")
+                .append("quantity", new Document("$sum", "$quantity"))
+                .append("revenue", new Document("$sum", "$revenue"))));
+        addSortAndLimit(pipeline, sortField, limit);
+        pipeline.add(new Document("$project", new Document("_id", 0)
+                .append("name", "$_id")
+                .append("quantity", 1)
+                .append("revenue", new Document("$toDouble", "$revenue"))));
+
+        return run(pipeline);
+    }
+
+    @Override
+    public List<Map<String, Object>> aggregateCategoryPerformance(String adminId, String sortBy, int limit) {
+        String sortField = "orders".equals(sortBy) ? "orders" : "revenue";
+
+        List<Document> pipeline = menuItemTotals(adminId);
+        pipeline.add(new Document("$group", new Document("_id", "$menuItem.category")
+                .append("orders", new Document("$sum", "$lines"))
+                .append("revenue", new Document("$sum", "$revenue"))));
+        addSortAndLimit(pipeline, sortField, limit);
+        pipeline.add(new Document("$project", new Document("_id", 0)
+                .append("category", "$_id")
+                .append("orders", 1)
+                .append("revenue", new Document("$toDouble", "$revenue"))));
+
+        return run(pipeline);
+    }
+
+    // Totals per menu item for the admin's orders, each with a menuItem sub-document holding its name and category
+    private List<Document> menuItemTotals(String adminId) {
+        return orderLineStorage.isEmbedded()
+                ? embeddedLineTotals(adminId)
+                : orderItemTotals(new Document("adminId", adminId));
+    }
+
+    /*
+     * Reads the lines embedded in each order, with the name and category they were sold under.
+     * Orders the migration hasn't reached yet are joined with their order_items in a $unionWith
+     * and named from the current menu, so the report covers every order while both shapes exist.
+     */
+    private List<Document> embeddedLineTotals(String adminId) {
+        Document lineRevenue = new Document("$multiply", Arrays.asList(
+                new Document("$toDecimal", "$lines.unitPrice"), "$lines.quantity"));
+
+        List<Document> pipeline = new ArrayList<>();
+        pipeline.add(new Document("$match", new Document("adminId", adminId)
+                .append("lines", new Document("$exists", true))));
+        pipeline.add(new Document("$project", new Document("lines", 1)));
+        pipeline.add(new Document("$unwind", "$lines"));
+        pipeline.add(new Document("$group", new Document("_id", "$lines.menuItemId")
+                .append("quantity", new Document("$sum", "$lines.quantity"))
+                .append("lines", new Document("$sum", 1))
+                .append("revenue", new Document("$sum", lineRevenue))
+                .append("menuItem", new Document("$last", new Document("name", "$lines.name")
+                        .append("category", "$lines.category")))));
+        pipeline.add(new Document("$unionWith", new Document("coll", mongoTemplate.getCollectionName(Order.class))
+                .append("pipeline", orderItemTotals(new Document("adminId", adminId)
+                        .append("lines", new Document("$exists", false))))));
+        // A menu item can have totals from both sides; the embedded side comes first, so its name wins
+        pipeline.add(new Document("$group", new Document("_id", "$_id")
+                .append("quantity", new Document("$sum", "$quantity"))
+                .append("lines", new Document("$sum", "$lines"))
+                .append("revenue", new Document("$sum", "$revenue"))
+                .append("menuItem", new Document("$first", new Document("name", "$menuItem.name")
+                        .append("category", "$menuItem.category")))));
+        // Lines whose menu item was already gone when they were migrated have no name
+        pipeline.add(new Document("$match", new Document("menuItem.name", new Document("$ne", null))));
+        return pipeline;
+    }
+
+    // Joins order_items and the current menu item document, for the orders matching the filter
+    private List<Document> orderItemTotals(Document match) {
+        Document lineRevenue = new Document("$multiply", Arrays.asList(
+                new Document("$toDecimal", "$items.unitPrice"), "$items.quantity"));
+
+        List<Document> pipeline = new ArrayList<>();
+        pipeline.add(new Document("$match", match));
+        // order_items.orderId holds the order id as a string
+        pipeline.add(new Document("$project", new Document("_id", new Document("$toString", "$_id"))));
+        pipeline.add(new Document("$lookup", new Document("from", mongoTemplate.getCollectionName(OrderItem.class))
+                .append("localField", "_id")
+                .append("foreignField", "orderId")
+                .append("as", "items")));
+        pipeline.add(new Document("$unwind", "$items"));
+        pipeline.add(new Document("$group", new Document("_id", "$items.menuItemId")
+                .append("quantity", new Document("$sum", "$items.quantity"))
+                .append("lines", new Document("$sum", 1))
+                .append("revenue", new Document("$sum", lineRevenue))));
+        pipeline.add(new Document("$addFields", new Document("menuItemObjectId", new Document("$convert",
+                new Document("input", "$_id").append("to", "objectId").append("onError", null).append("onNull", null)))));
+        pipeline.add(new Document("$lookup", new Document("from", mongoTemplate.getCollectionName(MenuItem.class))
+                .append("localField", "menuItemObjectId")
+                .append("foreignField", "_id")
+                .append("as", "menuItem")));
+        pipeline.add(new Document("$unwind", "$menuItem"));
+        return pipeline;
+    }
+
+    private void addSortAndLimit(List<Document> pipeline, String sortField, int limit) {
+        pipeline.add(new Document("$sort", new Document(sortField, -1).append("_id", 1)));
+        if (limit > 0) {
+            pipeline.add(new Document("$limit", limit));
+        }
+    }
+
+    private List<Map<String, Object>> run(List<Document> pipeline) {
+        return mongoTemplate.getCollection(mongoTemplate.getCollectionName(Order.class))
+                .aggregate(pipeline)
+                .allowDiskUse(true)
+                .into(new ArrayList<>());
+    }
+}
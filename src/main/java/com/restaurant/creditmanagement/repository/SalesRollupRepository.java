@@ -0,0 +1,17 @@
+package com.restaurant.creditmanagement.repository;
+
+import com.restaurant.creditmanagement.model.SalesRollup;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface SalesRollupRepository extends MongoRepository<SalesRollup, String> {
+    @Query(value = "{ 'adminId': ?0 }", fields = "{ 'hour': 1, 'dayOfWeek': 1, 'orderCount': 1, 'revenue': 1 }")
+    List<SalesRollup> findTotalsByAdminId(String adminId);
+
+    @Query(value = "{ 'adminId': ?0 }", fields = "{ 'version': 1 }")
+    List<SalesRollup> findVersionsByAdminId(String adminId);
+}
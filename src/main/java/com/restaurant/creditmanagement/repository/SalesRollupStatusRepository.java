@@ -0,0 +1,9 @@
+package com.restaurant.creditmanagement.repository;
+
+import com.restaurant.creditmanagement.model.SalesRollupStatus;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface SalesRollupStatusRepository extends MongoRepository<SalesRollupStatus, String> {
+}
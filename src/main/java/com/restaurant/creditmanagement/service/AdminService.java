@@ -6,6 +6,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.List;
 import java.util.Optional;
 
 @Service
@@ -113,4 +114,19 @@ public class AdminService {
         return adminRepository.findById(id)
             .orElseThrow(() -> new RuntimeException("Admin not found"));
     }
+
+    public CustomerSegmentation getSegmentation(String id) {
+        return CustomerSegmentation.forAdmin(adminRepository.findById(id).orElse(null));
+    }
+
+    public Admin updateSegmentation(String id, List<Integer> loyaltyThresholds, List<Integer> frequencyThresholds) {
+        CustomerSegmentation.validate(loyaltyThresholds, "loyaltyThresholds");
+        CustomerSegmentation.validate(frequencyThresholds, "frequencyThresholds");
+
+        Admin admin = adminRepository.findById(id)
+            .orElseThrow(() -> new RuntimeException("Admin not found"));
+        admin.setLoyaltyThresholds(loyaltyThresholds);
+        admin.setFrequencyThresholds(frequencyThresholds);
+        return adminRepository.save(admin);
+    }
 }
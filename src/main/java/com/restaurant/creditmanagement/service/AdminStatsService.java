@@ -0,0 +1,157 @@
+package com.restaurant.creditmanagement.service;
+
+import com.restaurant.creditmanagement.model.Admin;
+import com.restaurant.creditmanagement.model.AdminStats;
+import com.restaurant.creditmanagement.repository.AdminRepository;
+import com.restaurant.creditmanagement.repository.AdminStatsRepository;
+import com.restaurant.creditmanagement.repository.CustomerRepository;
+import com.restaurant.creditmanagement.repository.OrderRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * Per-admin dashboard counters. Writers apply deltas with $inc; a missing document is never
+ * created by a delta but rebuilt from scratch on the next read, so counters can't start from
+ * a partial history. A nightly job rebuilds every admin's document to correct any drift. Every
+ * delta bumps the document's version, and a rebuild only replaces a document still at the
+ * version it read, recomputing otherwise, so deltas landing mid-rebuild are neither lost nor
+ * counted twice.
+ */
+@Service
+public class AdminStatsService {
+    private static final Logger logger = LoggerFactory.getLogger(AdminStatsService.class);
+    private static final int MAX_REBUILD_ATTEMPTS = 5;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private AdminStatsRepository adminStatsRepository;
+
+    @Autowired
+    private AdminRepository adminRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    public AdminStats getStats(String adminId) {
+        return adminStatsRepository.findById(adminId).orElseGet(() -> rebuild(adminId));
+    }
+
+    public void recordOrderCreated(String adminId, BigDecimal amount) {
+        apply(adminId, new Update().inc("orderCount", 1).inc("revenue", orZero(amount)));
+    }
+
+    // A batch of orders written at once, e.g. by an import
+    public void recordOrdersCreated(String adminId, int count, BigDecimal amount) {
+        apply(adminId, new Update().inc("orderCount", count).inc("revenue", orZero(amount)));
+    }
+
+    public void recordOrderDeleted(String adminId, BigDecimal amount) {
+        apply(adminId, new Update().inc("orderCount", -1).inc("revenue", orZero(amount).negate()));
+    }
+
+    public void recordRevenueChange(String adminId, BigDecimal delta) {
+        apply(adminId, new Update().inc("revenue", orZero(delta)));
+    }
+
+    public void recordCreditChange(String adminId, BigDecimal delta) {
+        apply(adminId, new Update().inc("outstandingCredit", orZero(delta)));
+    }
+
+    public void recordCustomerCreated(String adminId) {
+        apply(adminId, new Update().inc("customerCount", 1));
+    }
+
+    // A batch of customers written at once, e.g. by an import, with their opening balances
+    public void recordCustomersCreated(String adminId, int count, BigDecimal creditBalance) {
+        apply(adminId, new Update().inc("customerCount", count).inc("outstandingCredit", orZero(creditBalance)));
+    }
+
+    public void recordCustomerDeleted(String adminId) {
+        apply(adminId, new Update().inc("customerCount", -1));
+    }
+
+    public AdminStats rebuild(String adminId) {
+        AdminStats stats = null;
+        for (int attempt = 0; attempt < MAX_REBUILD_ATTEMPTS; attempt++) {
+            Optional<AdminStats> current = adminStatsRepository.findById(adminId);
+            stats = new AdminStats();
+            stats.setAdminId(adminId);
+            stats.setRevenue(orderRepository.sumTotalAmount(adminId, null));
+            stats.setOrderCount(orderRepository.countByAdminId(adminId));
+            stats.setCustomerCount(customerRepository.countByAdminId(adminId));
+            stats.setOutstandingCredit(customerRepository.sumOutstandingCredit(adminId));
+            stats.setRebuiltAt(LocalDateTime.now());
+            if (swapIn(stats, current.map(AdminStats::getVersion).orElse(null), current.isPresent())) {
+                return stats;
+            }
+        }
+        // Deltas kept landing; the next reconciliation tries again
+        logger.warn("Stats for admin {} kept changing during rebuild, left as they are", adminId);
+        return adminStatsRepository.findById(adminId).orElse(stats);
+    }
+
+    @Scheduled(cron = "${app.stats.reconcile-cron:0 30 3 * * *}")
+    public void reconcileAll() {
+        for (Admin admin : adminRepository.findAll()) {
+            try {
+                rebuild(admin.getId());
+            } catch (Exception e) {
+                logger.warn("Failed to rebuild stats for admin {}: {}", admin.getId(), e.getMessage());
+            }
+        }
+    }
+
+    // Inserts the document if there was none, otherwise replaces it only while it is still at expectedVersion
+    private boolean swapIn(AdminStats stats, Long expectedVersion, boolean exists) {
+        long version = expectedVersion != null ? expectedVersion + 1 : 1;
+        stats.setVersion(version);
+        if (!exists) {
+            try {
+                adminStatsRepository.insert(stats);
+                return true;
+            } catch (DuplicateKeyException e) {
+                return false;
+            }
+        }
+        Update replacement = new Update()
+                .set("revenue", stats.getRevenue())
+                .set("orderCount", stats.getOrderCount())
+                .set("customerCount", stats.getCustomerCount())
+                .set("outstandingCredit", stats.getOutstandingCredit())
+                .set("rebuiltAt", stats.getRebuiltAt())
+                .set("version", version);
+        Query current = Query.query(Criteria.where("adminId").is(stats.getAdminId()).and("version").is(expectedVersion));
+        return mongoTemplate.updateFirst(current, replacement, AdminStats.class).getMatchedCount() == 1;
+    }
+
+    private void apply(String adminId, Update update) {
+        update.inc("version", 1);
+        try {
+            mongoTemplate.updateFirst(Query.query(Criteria.where("adminId").is(adminId)), update, AdminStats.class);
+        } catch (Exception e) {
+            // Counters are corrected by the next reconciliation; never fail the business write
+            logger.warn("Failed to update stats for admin {}: {}", adminId, e.getMessage());
+        }
+    }
+
+    private static BigDecimal orZero(BigDecimal value) {
+        return value != null ? value : BigDecimal.ZERO;
+    }
+}
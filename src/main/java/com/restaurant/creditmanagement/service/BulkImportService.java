@@ -0,0 +1,338 @@
+package com.restaurant.creditmanagement.service;
+
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mongodb.bulk.BulkWriteError;
+import com.restaurant.creditmanagement.dto.CustomerImportRow;
+import com.restaurant.creditmanagement.dto.DataFormat;
+import com.restaurant.creditmanagement.dto.ImportReport;
+import com.restaurant.creditmanagement.dto.MenuItemImportRow;
+import com.restaurant.creditmanagement.event.MenuChangedEvent;
+import com.restaurant.creditmanagement.model.Customer;
+import com.restaurant.creditmanagement.model.MenuItem;
+import com.restaurant.creditmanagement.repository.CustomerRepository;
+import com.restaurant.creditmanagement.util.RowReader;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Bulk import of customers and menu items for onboarding, from CSV or NDJSON. Rows are checked
+ * as they are read, duplicates are caught in memory against the admin's existing records and
+ * the earlier rows of the file, and valid rows are written with unordered bulk inserts.
+ * Derived data (stats, search index, menu version) is updated once per import, and imported
+ * menu items get their images from the background enrichment queue.
+ */
+@Service
+public class BulkImportService {
+    private static final Logger logger = LoggerFactory.getLogger(BulkImportService.class);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private CustomerSearchService customerSearchService;
+
+    @Autowired
+    private AdminStatsService adminStatsService;
+
+    @Autowired
+    private MenuItemService menuItemService;
+
+    @Autowired
+    private MenuImageEnrichmentService imageEnrichmentService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${app.imports.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${app.imports.max-reported-errors:1000}")
+    private int maxReportedErrors;
+
+    /** Customers are duplicates if they share a phone number (by digits) or an email address. */
+    public Map<String, Object> importCustomers(String adminId, DataFormat format, InputStream body) throws IOException {
+        Set<String> seenKeys = new HashSet<>();
+        for (Customer existing : customerRepository.findSearchFieldsByAdminId(adminId)) {
+            seenKeys.addAll(customerKeys(existing.getPhone(), existing.getEmail()));
+        }
+
+        ImportReport report = new ImportReport(maxReportedErrors);
+        List<Pending<Customer>> batch = new ArrayList<>(batchSize);
+        LocalDateTime now = LocalDateTime.now();
+        try (RowReader rows = new RowReader(format, body, objectMapper)) {
+            Map<String, Object> row;
+            while ((row = nextRow(rows, report)) != null) {
+                try {
+                    Customer customer = toCustomer(adminId, convert(row, CustomerImportRow.class), now);
+                    Set<String> keys = customerKeys(customer.getPhone(), customer.getEmail());
+                    for (String key : keys) {
+                        if (seenKeys.contains(key)) {
+                            throw new IllegalArgumentException("Duplicate customer " + key);
+                        }
+                    }
+                    seenKeys.addAll(keys);
+                    batch.add(new Pending<>(rows.getLineNumber(), customer));
+                } catch (IllegalArgumentException e) {
+                    report.fail(rows.getLineNumber(), e.getMessage());
+                }
+                if (batch.size() == batchSize) {
+                    flushCustomers(adminId, batch, report);
+                }
+            }
+        } finally {
+            flushCustomers(adminId, batch, report);
+        }
+
+        logger.info("Imported {} of {} customers for admin {}", report.getImported(), report.getLines(), adminId);
+        return report.toMap();
+    }
+
+    /** Menu items are duplicates if they share a name and category, ignoring case and accents. */
+    public Map<String, Object> importMenuItems(String adminId, DataFormat format, InputStream body) throws IOException {
+        Set<String> seenKeys = new HashSet<>();
+        for (MenuItem existing : menuItemService.getAllMenuItems(adminId)) {
+            seenKeys.add(menuItemKey(existing.getName(), existing.getCategory()));
+        }
+
+        ImportReport report = new ImportReport(maxReportedErrors);
+        List<Pending<MenuItem>> batch = new ArrayList<>(batchSize);
+        List<MenuItem> needImages = new ArrayList<>();
+        try (RowReader rows = new RowReader(format, body, objectMapper)) {
+            Map<String, Object> row;
+            while ((row = nextRow(rows, report)) != null) {
+                try {
+                    MenuItem menuItem = toMenuItem(adminId, convert(row, MenuItemImportRow.class));
+                    String key = menuItemKey(menuItem.getName(), menuItem.getCategory());
+                    if (!seenKeys.add(key)) {
+                        throw new IllegalArgumentException("Duplicate menu item " + menuItem.getName()
+                                + " in category " + menuItem.getCategory());
+                    }
+                    batch.add(new Pending<>(rows.getLineNumber(), menuItem));
+                } catch (IllegalArgumentException e) {
+                    report.fail(rows.getLineNumber(), e.getMessage());
+                }
+                if (batch.size() == batchSize) {
+                    collectPlaceholders(flushMenuItems(batch, report), needImages);
+                }
+            }
+        } finally {
+            collectPlaceholders(flushMenuItems(batch, report), needImages);
+            if (report.getImported() > 0) {
+                eventPublisher.publishEvent(new MenuChangedEvent(adminId));
+            }
+        }
+
+        // Whatever doesn't fit in the queue keeps the placeholder until the next startup sweep
+        int queued = 0;
+        for (MenuItem menuItem : needImages) {
+            if (!imageEnrichmentService.enqueue(menuItem)) {
+                break;
+            }
+            queued++;
+        }
+
+        logger.info("Imported {} of {} menu items for admin {}", report.getImported(), report.getLines(), adminId);
+        Map<String, Object> result = report.toMap();
+        result.put("imagesQueued", queued);
+        return result;
+    }
+
+    private Customer toCustomer(String adminId, CustomerImportRow row, LocalDateTime now) {
+        String name = trimToNull(row.getName());
+        if (name == null) {
+            throw new IllegalArgumentException("name is required");
+        }
+        BigDecimal totalCredit = row.getTotalCredit() != null ? row.getTotalCredit() : BigDecimal.ZERO;
+        BigDecimal creditBalance = row.getCreditBalance() != null ? row.getCreditBalance() : BigDecimal.ZERO;
+        if (totalCredit.signum() < 0 || creditBalance.signum() < 0) {
+            throw new IllegalArgumentException("Credit amounts cannot be negative");
+        }
+        if (creditBalance.compareTo(totalCredit) > 0) {
+            throw new IllegalArgumentException("Credit balance cannot exceed the credit limit");
+        }
+
+        Customer customer = new Customer();
+        customer.setId(new ObjectId().toHexString());
+        customer.setAdminId(adminId);
+        customer.setName(name);
+        customer.setNormalizedName(CustomerSearchService.normalizeName(name));
+        customer.setPhone(trimToNull(row.getPhone()));
+        customer.setEmail(trimToNull(row.getEmail()));
+        customer.setAddress(trimToNull(row.getAddress()));
+        customer.setTotalCredit(totalCredit);
+        customer.setCreditBalance(creditBalance);
+        customer.setActive(true);
+        customer.setCreatedAt(now);
+        return customer;
+    }
+
+    private MenuItem toMenuItem(String adminId, MenuItemImportRow row) {
+        String name = trimToNull(row.getName());
+        if (name == null) {
+            throw new IllegalArgumentException("name is required");
+        }
+        if (row.getPrice() == null || row.getPrice().signum() < 0) {
+            throw new IllegalArgumentException("price is required and cannot be negative");
+        }
+        if (row.getPrepTime() != null && row.getPrepTime() < 0) {
+            throw new IllegalArgumentException("prepTime cannot be negative");
+        }
+
+        MenuItem menuItem = new MenuItem();
+        menuItem.setId(new ObjectId().toHexString());
+        menuItem.setAdminId(adminId);
+        menuItem.setName(name);
+        menuItem.setDescription(trimToNull(row.getDescription()));
+        menuItem.setPrice(row.getPrice());
+        menuItem.setCategory(trimToNull(row.getCategory()));
+        menuItem.setPrepTime(row.getPrepTime());
+        menuItem.setRating(row.getRating());
+        menuItem.setIsSpecial(row.getIsSpecial() != null ? row.getIsSpecial() : false);
+        menuItem.setAvailable(row.getAvailable() != null ? row.getAvailable() : true);
+        menuItem.setImageUrl(MenuImageStore.isHttpUrl(row.getImageUrl())
+                ? row.getImageUrl().trim() : PexelsService.PLACEHOLDER_IMAGE_URL);
+        return menuItem;
+    }
+
+    private void flushCustomers(String adminId, List<Pending<Customer>> batch, ImportReport report) {
+        List<Customer> inserted = insertBatch(batch, Customer.class, report);
+        BigDecimal creditBalance = BigDecimal.ZERO;
+        for (Customer customer : inserted) {
+            customerSearchService.customerSaved(customer);
+            creditBalance = creditBalance.add(customer.getCreditBalance());
+        }
+        if (!inserted.isEmpty()) {
+            adminStatsService.recordCustomersCreated(adminId, inserted.size(), creditBalance);
+        }
+    }
+
+    private List<MenuItem> flushMenuItems(List<Pending<MenuItem>> batch, ImportReport report) {
+        return insertBatch(batch, MenuItem.class, report);
+    }
+
+    private static void collectPlaceholders(List<MenuItem> inserted, List<MenuItem> needImages) {
+        for (MenuItem menuItem : inserted) {
+            if (PexelsService.PLACEHOLDER_IMAGE_URL.equals(menuItem.getImageUrl())) {
+                needImages.add(menuItem);
+            }
+        }
+    }
+
+    // One unordered bulk insert; returns the documents that were written and empties the batch
+    private <T> List<T> insertBatch(List<Pending<T>> batch, Class<T> type, ImportReport report) {
+        if (batch.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<T> documents = new ArrayList<>(batch.size());
+        for (Pending<T> pending : batch) {
+            documents.add(pending.document);
+        }
+        Set<Integer> rejected = new HashSet<>();
+        try {
+            mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, type).insert(documents).execute();
+        } catch (BulkOperationException e) {
+            for (BulkWriteError error : e.getErrors()) {
+                rejected.add(error.getIndex());
+                report.fail(batch.get(error.getIndex()).lineNumber, error.getMessage());
+            }
+        } finally {
+            batch.clear();
+        }
+
+        List<T> inserted = new ArrayList<>(documents.size() - rejected.size());
+        for (int i = 0; i < documents.size(); i++) {
+            if (!rejected.contains(i)) {
+                inserted.add(documents.get(i));
+            }
+        }
+        report.imported(inserted.size());
+        return inserted;
+    }
+
+    // Skips rows the reader couldn't parse, recording them as failures
+    private static Map<String, Object> nextRow(RowReader rows, ImportReport report) throws IOException {
+        while (true) {
+            try {
+                Map<String, Object> row = rows.next();
+                if (row != null) {
+                    report.lineRead();
+                }
+                return row;
+            } catch (IllegalArgumentException e) {
+                report.lineRead();
+                report.fail(rows.getLineNumber(), e.getMessage());
+            }
+        }
+    }
+
+    private <T> T convert(Map<String, Object> row, Class<T> type) {
+        try {
+            return objectMapper.convertValue(row, type);
+        } catch (IllegalArgumentException e) {
+            if (e.getCause() instanceof JsonMappingException) {
+                throw new IllegalArgumentException(((JsonMappingException) e.getCause()).getOriginalMessage());
+            }
+            throw e;
+        }
+    }
+
+    private static Set<String> customerKeys(String phone, String email) {
+        Set<String> keys = new HashSet<>();
+        String phoneDigits = phone != null ? phone.replaceAll("[^0-9]", "") : "";
+        if (!phoneDigits.isEmpty()) {
+            keys.add("phone " + phoneDigits);
+        }
+        String normalizedEmail = email != null ? email.trim().toLowerCase(Locale.ROOT) : "";
+        if (!normalizedEmail.isEmpty()) {
+            keys.add("email " + normalizedEmail);
+        }
+        return keys;
+    }
+
+    private static String menuItemKey(String name, String category) {
+        return CustomerSearchService.normalizeName(name) + "\u0000" + CustomerSearchService.normalizeName(category);
+    }
+
+    private static String trimToNull(String value) {
+        if (value == null || value.trim().isEmpty()) {
+            return null;
+        }
+        return value.trim();
+    }
+
+    private static class Pending<T> {
+        final long lineNumber;
+        final T document;
+
+        Pending(long lineNumber, T document) {
+            this.lineNumber = lineNumber;
+            this.document = document;
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package com.restaurant.creditmanagement.service;
+
+import com.restaurant.creditmanagement.cache.PrefixIndex;
+import com.restaurant.creditmanagement.cache.TtlCache;
+import com.restaurant.creditmanagement.dto.CustomerSuggestion;
+import com.restaurant.creditmanagement.model.Customer;
+import com.restaurant.creditmanagement.repository.CustomerRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+
+import java.text.Normalizer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Autocomplete over customer name, phone and email. Each admin gets an in-memory prefix index,
+ * loaded from one projected query on first use and kept current by the customer writes on this
+ * instance; it expires after a few minutes so writes made elsewhere show up. Admins with more
+ * customers than {@code app.search.max-indexed-customers} are served from the
+ * (adminId, normalizedName) index in Mongo instead, by name prefix only.
+ */
+@Service
+public class CustomerSearchService {
+    public static final int DEFAULT_LIMIT = 20;
+    public static final int MAX_LIMIT = 100;
+
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Pattern PHONE_QUERY = Pattern.compile("[0-9()+\\-. ]*[0-9][0-9()+\\-. ]*");
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Value("${app.search.max-indexed-customers:50000}")
+    private int maxIndexedCustomers;
+
+    private final TtlCache<String, AdminIndex> indexes = new TtlCache<>(500, Duration.ofMinutes(10));
+
+    /** Lower-cased, accent-free, single-spaced form of a name; what the prefix index is keyed on. */
+    public static String normalizeName(String name) {
+        if (name == null) {
+            return "";
+        }
+        String stripped = MARKS.matcher(Normalizer.normalize(name, Normalizer.Form.NFD)).replaceAll("");
+        return WHITESPACE.matcher(stripped.toLowerCase(Locale.ROOT).trim()).replaceAll(" ");
+    }
+
+    /**
+     * Customers whose name, phone or email match every word of the query by prefix, best
+     * matches first: exact name, then name prefix, then a later name word, then phone/email.
+     */
+    public List<CustomerSuggestion> search(String adminId, String query, int limit) {
+        String normalizedQuery = normalizeName(query);
+        if (normalizedQuery.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        AdminIndex index = indexFor(adminId);
+        if (index == null) {
+            return customerRepository.findByNormalizedNameRange(adminId, normalizedQuery,
+                            normalizedQuery + Character.MAX_VALUE, PageRequest.of(0, limit, Sort.by("normalizedName")))
+                    .stream()
+                    .map(CustomerSuggestion::of)
+                    .collect(Collectors.toList());
+        }
+
+        List<String> terms = new ArrayList<>();
+        if (PHONE_QUERY.matcher(normalizedQuery).matches()) {
+            terms.add(digitsOf(normalizedQuery));
+        } else {
+            for (String term : normalizedQuery.split(" ")) {
+                terms.add(term);
+            }
+        }
+
+        Set<String> candidates = null;
+        for (String term : terms) {
+            Set<String> matches = index.keys.findByPrefix(term);
+            if (candidates == null) {
+                candidates = matches;
+            } else {
+                candidates.retainAll(matches);
+            }
+            if (candidates.isEmpty()) {
+                return new ArrayList<>();
+            }
+        }
+
+        String firstTerm = terms.get(0);
+        return candidates.stream()
+                .map(index.entries::get)
+                .filter(entry -> entry != null)
+                .sorted(Comparator.<IndexedCustomer>comparingInt(entry -> entry.rank(normalizedQuery, firstTerm))
+                        .thenComparing(entry -> entry.normalizedName)
+                        .thenComparing(entry -> entry.suggestion.getId()))
+                .limit(limit)
+                .map(entry -> entry.suggestion)
+                .collect(Collectors.toList());
+    }
+
+    /** Adds or re-indexes a customer after it was created or edited. */
+    public void customerSaved(Customer customer) {
+        AdminIndex index = indexes.get(customer.getAdminId());
+        if (index != null) {
+            index.put(customer);
+        }
+    }
+
+    public void customerDeleted(String adminId, String customerId) {
+        AdminIndex index = indexes.get(adminId);
+        if (index != null) {
+            index.remove(customerId);
+        }
+    }
+
+    private AdminIndex indexFor(String adminId) {
+        AdminIndex index = indexes.get(adminId);
+        if (index != null) {
+            return index;
+        }
+        if (customerRepository.countByAdminId(adminId) > maxIndexedCustomers) {
+            return null;
+        }
+
+        index = new AdminIndex();
+        for (Customer customer : customerRepository.findSearchFieldsByAdminId(adminId)) {
+            index.put(customer);
+        }
+        indexes.put(adminId, index);
+        return index;
+    }
+
+    private static String digitsOf(String text) {
+        return text.replaceAll("[^0-9]", "");
+    }
+
+    private static class AdminIndex {
+        final PrefixIndex keys = new PrefixIndex();
+        final Map<String, IndexedCustomer> entries = new ConcurrentHashMap<>();
+
+        void put(Customer customer) {
+            IndexedCustomer entry = new IndexedCustomer(customer);
+            entries.put(customer.getId(), entry);
+            keys.put(customer.getId(), entry.keys());
+        }
+
+        void remove(String customerId) {
+            entries.remove(customerId);
+            keys.remove(customerId);
+        }
+    }
+
+    private static class IndexedCustomer {
+        final CustomerSuggestion suggestion;
+        final String normalizedName;
+        final String phoneDigits;
+        final String email;
+
+        IndexedCustomer(Customer customer) {
+            this.suggestion = CustomerSuggestion.of(customer);
+            this.normalizedName = normalizeName(customer.getName());
+            this.phoneDigits = customer.getPhone() != null ? digitsOf(customer.getPhone()) : "";
+            this.email = customer.getEmail() != null ? customer.getEmail().trim().toLowerCase(Locale.ROOT) : "";
+        }
+
+        Set<String> keys() {
+            Set<String> keys = new HashSet<>();
+            keys.add(normalizedName);
+            for (String word : normalizedName.split(" ")) {
+                keys.add(word);
+            }
+            keys.add(phoneDigits);
+            keys.add(email);
+            int at = email.indexOf('@');
+            if (at > 0) {
+                keys.add(email.substring(0, at));
+            }
+            return keys;
+        }
+
+        int rank(String query, String firstTerm) {
+            if (normalizedName.equals(query)) {
+                return 0;
+            }
+            if (normalizedName.startsWith(query)) {
+                return 1;
+            }
+            if (normalizedName.contains(" " + firstTerm)) {
+                return 2;
+            }
+            return 3;
+        }
+    }
+}
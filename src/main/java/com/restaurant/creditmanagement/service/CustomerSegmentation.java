@@ -0,0 +1,69 @@
+package com.restaurant.creditmanagement.service;
+
+import com.restaurant.creditmanagement.model.Admin;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Order-count thresholds used to bucket customers into loyalty and frequency segments.
+ * A customer falls into the first segment whose threshold their order count exceeds.
+ */
+public class CustomerSegmentation {
+    public static final List<Integer> DEFAULT_LOYALTY_THRESHOLDS = Arrays.asList(20, 10, 5);
+    public static final List<Integer> DEFAULT_FREQUENCY_THRESHOLDS = Arrays.asList(8, 4, 1);
+
+    private static final String[] LOYALTY_SEGMENTS = {"VIP", "Regular", "Occasional", "New"};
+    private static final String[] FREQUENCY_SEGMENTS = {"Weekly", "Monthly", "Occasional", "One-time"};
+
+    private final List<Integer> loyaltyThresholds;
+    private final List<Integer> frequencyThresholds;
+
+    public CustomerSegmentation(List<Integer> loyaltyThresholds, List<Integer> frequencyThresholds) {
+        this.loyaltyThresholds = loyaltyThresholds != null ? loyaltyThresholds : DEFAULT_LOYALTY_THRESHOLDS;
+        this.frequencyThresholds = frequencyThresholds != null ? frequencyThresholds : DEFAULT_FREQUENCY_THRESHOLDS;
+    }
+
+    public static CustomerSegmentation forAdmin(Admin admin) {
+        if (admin == null) {
+            return new CustomerSegmentation(null, null);
+        }
+        return new CustomerSegmentation(admin.getLoyaltyThresholds(), admin.getFrequencyThresholds());
+    }
+
+    // Thresholds must be three non-negative counts in strictly descending order
+    public static void validate(List<Integer> thresholds, String name) {
+        if (thresholds == null || thresholds.size() != 3) {
+            throw new IllegalArgumentException(name + " must contain exactly 3 thresholds");
+        }
+        for (int i = 0; i < thresholds.size(); i++) {
+            Integer threshold = thresholds.get(i);
+            if (threshold == null || threshold < 0) {
+                throw new IllegalArgumentException(name + " must be non-negative");
+            }
+            if (i > 0 && threshold >= thresholds.get(i - 1)) {
+                throw new IllegalArgumentException(name + " must be in descending order");
+            }
+        }
+    }
+
+    public List<Integer> getLoyaltyThresholds() { return loyaltyThresholds; }
+    public List<Integer> getFrequencyThresholds() { return frequencyThresholds; }
+
+    public String loyaltyCategory(int orderCount) {
+        return segment(orderCount, loyaltyThresholds, LOYALTY_SEGMENTS);
+    }
+
+    public String frequencyCategory(int orderCount) {
+        return segment(orderCount, frequencyThresholds, FREQUENCY_SEGMENTS);
+    }
+
+    private static String segment(int orderCount, List<Integer> thresholds, String[] segments) {
+        for (int i = 0; i < thresholds.size(); i++) {
+            if (orderCount > thresholds.get(i)) {
+                return segments[i];
+            }
+        }
+        return segments[segments.length - 1];
+    }
+}
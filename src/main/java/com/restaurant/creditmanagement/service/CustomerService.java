@@ -1,17 +1,25 @@
 package com.restaurant.creditmanagement.service;
 
+import com.restaurant.creditmanagement.cache.TtlCache;
+import com.restaurant.creditmanagement.dto.CursorPage;
+import com.restaurant.creditmanagement.dto.CustomerSort;
+import com.restaurant.creditmanagement.dto.CustomerSuggestion;
+import com.restaurant.creditmanagement.dto.CustomerSummary;
+import com.restaurant.creditmanagement.dto.PageCursor;
 import com.restaurant.creditmanagement.model.Customer;
+import com.restaurant.creditmanagement.model.Order;
 import com.restaurant.creditmanagement.model.Transaction;
 import com.restaurant.creditmanagement.model.TransactionType;
 import com.restaurant.creditmanagement.repository.CustomerRepository;
 import com.restaurant.creditmanagement.repository.TransactionRepository;
-import com.restaurant.creditmanagement.repository.OrderRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.*;
 
@@ -26,7 +34,16 @@ public class CustomerService {
     private TransactionRepository transactionRepository;
 
     @Autowired
-    private OrderRepository orderRepository;
+    private AdminStatsService adminStatsService;
+
+    @Autowired
+    private AdminService adminService;
+
+    @Autowired
+    private CustomerSearchService customerSearchService;
+
+    // Customer names for order lists and the dashboard, keyed by "adminId:customerId"
+    private final TtlCache<String, String> customerNames = new TtlCache<>(10_000, Duration.ofMinutes(1));
 
     public void deleteCustomer(String id) {
         Optional<Customer> customerOpt = customerRepository.findById(id);
@@ -38,28 +55,140 @@ public class CustomerService {
             }
 
             customerRepository.delete(customer);
+            customerNames.invalidate(customer.getAdminId() + ":" + customer.getId());
+            customerSearchService.customerDeleted(customer.getAdminId(), customer.getId());
+            adminStatsService.recordCustomerDeleted(customer.getAdminId());
         }
     }
 
-    public List<Customer> getAllCustomers(String adminId) {
-        return customerRepository.findByAdminId(adminId);
+    public CursorPage<CustomerSummary> getCustomerPage(String adminId, CustomerSort sort, boolean outstandingOnly,
+                                                       PageCursor after, int size) {
+        CursorPage<Customer> page = customerRepository.findCustomerPage(adminId, sort, outstandingOnly, after, size);
+        List<CustomerSummary> summaries = new ArrayList<>(page.getItems().size());
+        for (Customer customer : page.getItems()) {
+            summaries.add(new CustomerSummary(customer));
+        }
+        return new CursorPage<>(summaries, page.getNextCursor());
     }
 
     public Customer createCustomer(Customer customer, String adminId) {
         customer.setAdminId(adminId);
-        return customerRepository.save(customer);
+        if (customer.getCreatedAt() == null) {
+            customer.setCreatedAt(LocalDateTime.now());
+        }
+        customer.setNormalizedName(CustomerSearchService.normalizeName(customer.getName()));
+        Customer saved = customerRepository.save(customer);
+        customerSearchService.customerSaved(saved);
+        adminStatsService.recordCustomerCreated(adminId);
+        adminStatsService.recordCreditChange(adminId, saved.getCreditBalance());
+        return saved;
+    }
+
+    public List<CustomerSummary> getRecentCustomers(String adminId) {
+        return getCustomerPage(adminId, CustomerSort.CREATED, false, null, 5).getItems();
     }
 
-    public Customer updateCustomer(Customer customer, String adminId) {
-        if (!customerRepository.existsById(customer.getId())) {
-            throw new RuntimeException("Customer not found");
+    /**
+     * Writes the profile fields with a single $set so a concurrent order or settlement can't be
+     * overwritten by a stale copy of the balance or stats. Returns empty if the customer
+     * doesn't exist for this admin.
+     */
+    public Optional<Customer> updateCustomer(String id, Customer changes, String adminId) {
+        changes.setNormalizedName(CustomerSearchService.normalizeName(changes.getName()));
+        Customer updated = customerRepository.updateProfile(id, adminId, changes);
+        if (updated == null) {
+            if (!customerExists(id, adminId)) {
+                return Optional.empty();
+            }
+            throw new IllegalArgumentException("New credit limit cannot be less than current balance");
+        }
+        customerNames.invalidate(adminId + ":" + id);
+        customerSearchService.customerSaved(updated);
+        return Optional.of(updated);
+    }
+
+    public void recordOrderPlaced(Order order) {
+        if (order.getCustomerId() != null) {
+            customerRepository.recordOrderPlaced(order.getCustomerId(), amountOf(order), order.getCreatedAt());
+        }
+    }
+
+    public void recordOrdersPlaced(List<Order> orders) {
+        customerRepository.recordOrdersPlaced(orders);
+    }
+
+    public void recordOrderAmountChanged(Order order, BigDecimal delta) {
+        if (order.getCustomerId() != null && delta.signum() != 0) {
+            customerRepository.recordSpendChange(order.getCustomerId(), delta);
         }
-        customer.setAdminId(adminId);
-        return customerRepository.save(customer);
     }
 
-    public List<Customer> searchCustomers(String query, String adminId) {
-        return customerRepository.searchByName(query, adminId);
+    public void recordOrderRemoved(Order order) {
+        if (order.getCustomerId() != null) {
+            customerRepository.recordOrderRemoved(order.getCustomerId(), amountOf(order));
+        }
+    }
+
+    private static BigDecimal amountOf(Order order) {
+        return order.getTotalAmount() != null ? order.getTotalAmount() : BigDecimal.ZERO;
+    }
+
+    /**
+     * Resolves customer names for a batch of orders: cached names are used as they are and the
+     * rest are loaded with a single $in query that projects only the name. Ids that don't
+     * belong to this admin are absent from the result.
+     */
+    public Map<String, String> getCustomerNames(String adminId, Collection<String> customerIds) {
+        Map<String, String> names = new HashMap<>();
+        Set<String> missing = new HashSet<>();
+        for (String customerId : customerIds) {
+            if (customerId == null) {
+                continue;
+            }
+            String name = customerNames.get(adminId + ":" + customerId);
+            if (name != null) {
+                names.put(customerId, name);
+            } else {
+                missing.add(customerId);
+            }
+        }
+
+        if (!missing.isEmpty()) {
+            for (Customer customer : customerRepository.findNamesByIdIn(missing, adminId)) {
+                String name = customer.getName() != null ? customer.getName() : "";
+                customerNames.put(adminId + ":" + customer.getId(), name);
+                names.put(customer.getId(), name);
+            }
+        }
+        return names;
+    }
+
+    /** Ranked search results as full customers, in the order the search index returned them. */
+    public List<Customer> searchCustomers(String query, String adminId, int limit) {
+        List<String> ids = new ArrayList<>();
+        for (CustomerSuggestion suggestion : customerSearchService.search(adminId, query, limit)) {
+            ids.add(suggestion.getId());
+        }
+
+        Map<String, Customer> byId = new HashMap<>();
+        for (Customer customer : customerRepository.findAllById(ids)) {
+            if (adminId.equals(customer.getAdminId())) {
+                byId.put(customer.getId(), customer);
+            }
+        }
+
+        List<Customer> customers = new ArrayList<>(byId.size());
+        for (String id : ids) {
+            Customer customer = byId.get(id);
+            if (customer != null) {
+                customers.add(customer);
+            }
+        }
+        return customers;
+    }
+
+    public List<CustomerSuggestion> autocompleteCustomers(String query, String adminId, int limit) {
+        return customerSearchService.search(adminId, query, limit);
     }
 
     public Optional<Customer> getCustomerById(String id, String adminId) {
@@ -72,53 +201,108 @@ public class CustomerService {
 
 
 
-    // Remove the old settleBalance method that uses setCustomer
-    
-    public Customer settleBalance(String customerId, String adminId, Transaction settlement) {
-        Optional<Customer> customerOpt = getCustomerById(customerId, adminId);
-        if (!customerOpt.isPresent()) {
-            throw new RuntimeException("Customer not found");
+    public boolean customerExists(String id, String adminId) {
+        return customerRepository.existsByIdAndAdminId(id, adminId);
+    }
+
+    // Single conditional update: no read-modify-write window between the limit check and the increment
+    public Optional<Customer> reserveCredit(String customerId, String adminId, BigDecimal amount) {
+        Customer customer = customerRepository.reserveCredit(customerId, adminId, amount);
+        if (customer != null) {
+            adminStatsService.recordCreditChange(adminId, amount);
         }
+        return Optional.ofNullable(customer);
+    }
 
-        Customer customer = customerOpt.get();
-        BigDecimal settlementAmount = settlement.getAmount();
+    public void releaseCredit(String customerId, String adminId, BigDecimal amount) {
+        customerRepository.releaseCredit(customerId, adminId, amount);
+        adminStatsService.recordCreditChange(adminId, amount.negate());
+    }
 
-        if (settlementAmount.compareTo(BigDecimal.ZERO) <= 0 ||
-            settlementAmount.compareTo(customer.getCreditBalance()) > 0) {
-            throw new RuntimeException("Invalid settlement amount");
+    /**
+     * Settles part or all of a customer's balance. The balance is decremented with one
+     * conditional update that also checks and records the idempotency key on the customer, so
+     * a retry can never settle twice and a crash can never record a key without its balance
+     * change. The transaction is written afterwards; a retry re-inserts it if the first attempt
+     * died before it was written. Returns empty if the customer doesn't exist for this admin.
+     */
+    public Optional<Customer> settleBalance(String customerId, String adminId, Transaction settlement,
+                                            String idempotencyKey) {
+        BigDecimal settlementAmount = settlement.getAmount();
+        if (settlementAmount == null || settlementAmount.compareTo(BigDecimal.ZERO) <= 0) {
+            throw new IllegalArgumentException("Invalid settlement amount");
         }
+        String key = idempotencyKey != null && !idempotencyKey.trim().isEmpty() ? idempotencyKey.trim() : null;
 
         // Set transaction details
+        settlement.setId(null);
         settlement.setCustomerId(customerId);
         settlement.setAdminId(adminId);
         settlement.setType(TransactionType.SETTLEMENT.toString());
         settlement.setStatus("COMPLETED");
         settlement.setTransactionDate(LocalDateTime.now());
+        settlement.setIdempotencyKey(key);
 
-        // Update customer balance
-        customer.setCreditBalance(customer.getCreditBalance().subtract(settlementAmount));
+        Customer customer = customerRepository.applySettlement(customerId, adminId, settlementAmount, key);
+        if (customer == null) {
+            Optional<Customer> current = getCustomerById(customerId, adminId);
+            if (!current.isPresent()) {
+                return Optional.empty();
+            }
+            List<String> settlementKeys = current.get().getSettlementKeys();
+            if (key != null && settlementKeys != null && settlementKeys.contains(key)) {
+                // Already settled under this key: make sure its transaction exists, change nothing else
+                logger.info("Ignoring repeated settlement {} for customer {}", key, customerId);
+                recordSettlement(settlement);
+                return current;
+            }
+            throw new IllegalArgumentException("Invalid settlement amount");
+        }
 
-        // Save both transaction and customer
-        transactionRepository.save(settlement);
-        return customerRepository.save(customer);
+        if (!recordSettlement(settlement)) {
+            // The key is older than the customer remembers but its transaction exists: undo this one
+            logger.info("Ignoring repeated settlement {} for customer {}", key, customerId);
+            customerRepository.revertSettlement(customerId, adminId, settlementAmount, key);
+            return getCustomerById(customerId, adminId);
+        }
+        adminStatsService.recordCreditChange(adminId, settlementAmount.negate());
+        return Optional.of(customer);
+    }
+
+    // False if a settlement with the same key is already recorded
+    private boolean recordSettlement(Transaction settlement) {
+        try {
+            transactionRepository.insert(settlement);
+            return true;
+        } catch (DuplicateKeyException e) {
+            return false;
+        }
+    }
+
+    public BigDecimal getTotalOutstandingCredit(String adminId) {
+        return customerRepository.sumOutstandingCredit(adminId);
     }
 
     public long countCustomersByAdminId(String adminId) {
         return customerRepository.countByAdminId(adminId);
     }
 
-    public List<Map<String, Object>> getLoyaltyDistribution(String adminId) {
-        List<Map<String, Object>> distribution = new ArrayList<>();
-        List<Customer> customers = customerRepository.findByAdminId(adminId);
+    /**
+     * Loyalty and frequency histograms for the admin's customers, read from the orderCount each
+     * customer carries so no orders are scanned. The thresholds are the admin's own.
+     */
+    public Map<String, List<Map<String, Object>>> getCustomerSegments(String adminId) {
+        CustomerSegmentation segmentation = adminService.getSegmentation(adminId);
 
         Map<String, Integer> loyaltyCount = new HashMap<>();
-
-        for (Customer customer : customers) {
-            Integer orderCount = orderRepository.countByCustomerId(customer.getId());
-            String category = getLoyaltyCategory(orderCount != null ? orderCount : 0);
-            loyaltyCount.merge(category, 1, Integer::sum);
+        Map<String, Integer> frequencyCount = new HashMap<>();
+        for (Customer customer : customerRepository.findOrderCountsByAdminId(adminId)) {
+            int orderCount = (int) Math.min(customer.getOrderCount(), Integer.MAX_VALUE);
+            loyaltyCount.merge(segmentation.loyaltyCategory(orderCount), 1, Integer::sum);
+            frequencyCount.merge(segmentation.frequencyCategory(orderCount), 1, Integer::sum);
         }
 
+        List<Map<String, Object>> distribution = new ArrayList<>();
         loyaltyCount.forEach((category, count) -> {
             Map<String, Object> categoryData = new HashMap<>();
             categoryData.put("category", category);
@@ -126,21 +310,7 @@ public class CustomerService {
             distribution.add(categoryData);
         });
 
-        return distribution;
-    }
-
-    public List<Map<String, Object>> getOrderFrequency(String adminId) {
         List<Map<String, Object>> frequency = new ArrayList<>();
-        List<Customer> customers = customerRepository.findByAdminId(adminId);
-
-        Map<String, Integer> frequencyCount = new HashMap<>();
-
-        for (Customer customer : customers) {
-            Integer orderCount = orderRepository.countByCustomerId(customer.getId());
-            String frequencyCategory = getFrequencyCategory(orderCount != null ? orderCount : 0);
-            frequencyCount.merge(frequencyCategory, 1, Integer::sum);
-        }
-
         frequencyCount.forEach((category, count) -> {
             Map<String, Object> categoryData = new HashMap<>();
             categoryData.put("frequency", category);
@@ -148,20 +318,17 @@ public class CustomerService {
             frequency.add(categoryData);
         });
 
-        return frequency;
+        Map<String, List<Map<String, Object>>> segments = new HashMap<>();
+        segments.put("loyaltyDistribution", distribution);
+        segments.put("orderFrequency", frequency);
+        return segments;
     }
 
-    private String getLoyaltyCategory(int orderCount) {
-        if (orderCount > 20) return "VIP";
-        if (orderCount > 10) return "Regular";
-        if (orderCount > 5) return "Occasional";
-        return "New";
+    public List<Map<String, Object>> getLoyaltyDistribution(String adminId) {
+        return getCustomerSegments(adminId).get("loyaltyDistribution");
     }
 
-    private String getFrequencyCategory(int orderCount) {
-        if (orderCount > 8) return "Weekly";
-        if (orderCount > 4) return "Monthly";
-        if (orderCount > 1) return "Occasional";
-        return "One-time";
+    public List<Map<String, Object>> getOrderFrequency(String adminId) {
+        return getCustomerSegments(adminId).get("orderFrequency");
     }
-}
\ No newline at end of file
+}
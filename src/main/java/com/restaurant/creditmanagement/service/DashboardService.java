@@ -1,5 +1,8 @@
 package com.restaurant.creditmanagement.service;
 
+import com.restaurant.creditmanagement.dto.CursorPage;
+import com.restaurant.creditmanagement.dto.CustomerSort;
+import com.restaurant.creditmanagement.dto.PageCursor;
 import com.restaurant.creditmanagement.model.Customer;
 import com.restaurant.creditmanagement.model.Order;
 import com.restaurant.creditmanagement.repository.CustomerRepository;
@@ -29,8 +32,9 @@ public class DashboardService {
 
 
 
-    public List<Customer> getAllCustomers(String adminId) {
-        return customerRepository.findByAdminId(adminId);
+    public CursorPage<Customer> getCustomerPage(String adminId, CustomerSort sort, boolean outstandingOnly,
+                                                PageCursor after, int size) {
+        return customerRepository.findCustomerPage(adminId, sort, outstandingOnly, after, size);
     }
 
     public List<Customer> getTopCustomers(String adminId) {
@@ -38,11 +42,7 @@ public class DashboardService {
     }
 
     public BigDecimal getTotalOutstandingCredit(String adminId) {
-        List<Customer> customers = customerRepository.findByAdminId(adminId);
-        return customers.stream()
-                .map(Customer::getCreditBalance)
-                .filter(balance -> balance.compareTo(BigDecimal.ZERO) > 0)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        return customerRepository.sumOutstandingCredit(adminId);
     }
 
     public long getTotalCustomers(String adminId) {
@@ -0,0 +1,197 @@
+package com.restaurant.creditmanagement.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.restaurant.creditmanagement.dto.DataFormat;
+import com.restaurant.creditmanagement.model.Order;
+import com.restaurant.creditmanagement.model.OrderLine;
+import com.restaurant.creditmanagement.model.Transaction;
+import com.restaurant.creditmanagement.util.Csv;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.util.CloseableIterator;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Full exports of an admin's orders, order items and transactions. Rows are read from a Mongo
+ * cursor and written to the output as they arrive, a batch at a time, so memory use depends on
+ * the batch size and not on how many rows the admin has.
+ */
+@Service
+public class ExportService {
+    private static final int BATCH_SIZE = 500;
+
+    private static final String[] ORDER_COLUMNS = {"id", "createdAt", "orderDate", "customerId", "customerName",
+            "status", "paymentMethod", "tax", "totalAmount", "notes"};
+    private static final String[] ORDER_ITEM_COLUMNS = {"orderId", "orderCreatedAt", "id", "menuItemId",
+            "menuItemName", "category", "quantity", "unitPrice", "lineTotal"};
+    private static final String[] TRANSACTION_COLUMNS = {"id", "transactionDate", "customerId", "customerName",
+            "type", "status", "amount", "notes"};
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private CustomerService customerService;
+
+    @Autowired
+    private OrderLineService orderLineService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /** Orders created in [from, to), oldest first. Either bound may be null. */
+    public void exportOrders(String adminId, LocalDateTime from, LocalDateTime to, DataFormat format,
+                             OutputStream out) throws IOException {
+        RowWriter writer = new RowWriter(format, ORDER_COLUMNS, out);
+        try (CloseableIterator<Order> orders = streamOrders(adminId, from, to, false)) {
+            forEachBatch(orders, batch -> {
+                Map<String, String> customerNames = customerService.getCustomerNames(adminId,
+                        batch.stream().map(Order::getCustomerId).collect(Collectors.toSet()));
+                for (Order order : batch) {
+                    writer.write(order.getId(), order.getCreatedAt(), order.getOrderDate(), order.getCustomerId(),
+                            customerNames.get(order.getCustomerId()), order.getStatus(), order.getPaymentMethod(),
+                            order.getTax(), order.getTotalAmount(), order.getNotes());
+                }
+            });
+        }
+        writer.finish();
+    }
+
+    /** The items of the orders created in [from, to), grouped by order, oldest order first. */
+    public void exportOrderItems(String adminId, LocalDateTime from, LocalDateTime to, DataFormat format,
+                                 OutputStream out) throws IOException {
+        RowWriter writer = new RowWriter(format, ORDER_ITEM_COLUMNS, out);
+        try (CloseableIterator<Order> orders = streamOrders(adminId, from, to, true)) {
+            forEachBatch(orders, batch -> {
+                Map<String, List<OrderLine>> linesByOrder = orderLineService.linesOf(batch);
+                for (Order order : batch) {
+                    for (OrderLine line : linesByOrder.getOrDefault(order.getId(), new ArrayList<>())) {
+                        writer.write(order.getId(), order.getCreatedAt(), line.getId(), line.getMenuItemId(),
+                                line.getName(), line.getCategory(), line.getQuantity(), line.getUnitPrice(),
+                                line.getUnitPrice() != null && line.getQuantity() != null ? line.getSubtotal() : null);
+                    }
+                }
+            });
+        }
+        writer.finish();
+    }
+
+    /** Transactions dated in [from, to), oldest first. Either bound may be null. */
+    public void exportTransactions(String adminId, LocalDateTime from, LocalDateTime to, DataFormat format,
+                                   OutputStream out) throws IOException {
+        RowWriter writer = new RowWriter(format, TRANSACTION_COLUMNS, out);
+        Query query = Query.query(dateRange(Criteria.where("adminId").is(adminId), "transactionDate", from, to))
+                .with(Sort.by(Sort.Direction.ASC, "transactionDate", "_id"))
+                .cursorBatchSize(BATCH_SIZE);
+        query.fields().exclude("adminId", "idempotencyKey");
+
+        try (CloseableIterator<Transaction> transactions = mongoTemplate.stream(query, Transaction.class)) {
+            forEachBatch(transactions, batch -> {
+                Map<String, String> customerNames = customerService.getCustomerNames(adminId,
+                        batch.stream().map(Transaction::getCustomerId).collect(Collectors.toSet()));
+                for (Transaction transaction : batch) {
+                    writer.write(transaction.getId(), transaction.getTransactionDate(), transaction.getCustomerId(),
+                            customerNames.get(transaction.getCustomerId()), transaction.getType(),
+                            transaction.getStatus(), transaction.getAmount(), transaction.getNotes());
+                }
+            });
+        }
+        writer.finish();
+    }
+
+    // Walks the (adminId, createdAt, _id) index; the item export only needs the ids, dates and lines
+    private CloseableIterator<Order> streamOrders(String adminId, LocalDateTime from, LocalDateTime to,
+                                                  boolean withLines) {
+        Query query = Query.query(dateRange(Criteria.where("adminId").is(adminId), "createdAt", from, to))
+                .with(Sort.by(Sort.Direction.ASC, "createdAt", "_id"))
+                .cursorBatchSize(BATCH_SIZE);
+        if (withLines) {
+            query.fields().include("createdAt", "adminId", "lines");
+        } else {
+            query.fields().exclude("orderItemIds", "lines", "adminId");
+        }
+        return mongoTemplate.stream(query, Order.class);
+    }
+
+    private static Criteria dateRange(Criteria criteria, String field, LocalDateTime from, LocalDateTime to) {
+        if (from != null && to != null) {
+            return criteria.and(field).gte(from).lt(to);
+        }
+        if (from != null) {
+            return criteria.and(field).gte(from);
+        }
+        if (to != null) {
+            return criteria.and(field).lt(to);
+        }
+        return criteria;
+    }
+
+    private static <T> void forEachBatch(CloseableIterator<T> cursor, BatchHandler<T> handler) throws IOException {
+        List<T> batch = new ArrayList<>(BATCH_SIZE);
+        while (cursor.hasNext()) {
+            batch.add(cursor.next());
+            if (batch.size() == BATCH_SIZE) {
+                handler.handle(batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            handler.handle(batch);
+        }
+    }
+
+    private interface BatchHandler<T> {
+        void handle(List<T> batch) throws IOException;
+    }
+
+    // Writes one row per line: a CSV line, or a JSON object keyed by the column names
+    private class RowWriter {
+        private final DataFormat format;
+        private final String[] columns;
+        private final OutputStream out;
+        private final ObjectWriter jsonWriter;
+
+        RowWriter(DataFormat format, String[] columns, OutputStream out) throws IOException {
+            this.format = format;
+            this.columns = columns;
+            this.out = out;
+            this.jsonWriter = objectMapper.writer().with(JsonGenerator.Feature.WRITE_BIGDECIMAL_AS_PLAIN);
+            if (format == DataFormat.CSV) {
+                out.write(Csv.line((Object[]) columns).getBytes(StandardCharsets.UTF_8));
+            }
+        }
+
+        void write(Object... values) throws IOException {
+            if (format == DataFormat.CSV) {
+                out.write(Csv.line(values).getBytes(StandardCharsets.UTF_8));
+                return;
+            }
+            Map<String, Object> row = new LinkedHashMap<>();
+            for (int i = 0; i < columns.length; i++) {
+                Object value = values[i];
+                row.put(columns[i], value instanceof LocalDateTime ? value.toString() : value);
+            }
+            out.write(jsonWriter.writeValueAsBytes(row));
+            out.write('\n');
+        }
+
+        void finish() throws IOException {
+            out.flush();
+        }
+    }
+}
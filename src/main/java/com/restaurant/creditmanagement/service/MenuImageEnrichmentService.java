@@ -0,0 +1,201 @@
+package com.restaurant.creditmanagement.service;
+
+import com.restaurant.creditmanagement.event.MenuChangedEvent;
+import com.restaurant.creditmanagement.model.MenuItem;
+import com.restaurant.creditmanagement.util.CircuitBreaker;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Schedulers;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fills in images for menu items after they were saved with the placeholder. Items go through a
+ * bounded in-memory queue; at most {@code concurrency} lookups are in flight, and the WebClient
+ * calls don't hold a thread while they wait. An item only gets its image if it still has the
+ * placeholder, so an image set by the user in the meantime is never overwritten. Items that
+ * don't fit in the queue, or whose lookup fails, keep the placeholder and are picked up again by
+ * the sweep, which runs at startup and then every {@code sweep-interval-ms}. Each sweep queues
+ * up to the free queue space and continues after the last item the previous one reached, so
+ * items that never get a photo can't starve the rest.
+ */
+@Service
+public class MenuImageEnrichmentService {
+    private static final Logger logger = LoggerFactory.getLogger(MenuImageEnrichmentService.class);
+
+    @Autowired
+    private PexelsService pexelsService;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${app.images.enrichment.queue-capacity:1000}")
+    private int queueCapacity;
+
+    @Value("${app.images.enrichment.concurrency:4}")
+    private int concurrency;
+
+    @Value("${app.images.enrichment.sweep-on-startup:true}")
+    private boolean sweepOnStartup;
+
+    private final AtomicLong enriched = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+
+    // Ids queued or being looked up, so a sweep doesn't queue an item twice
+    private final Set<String> pending = ConcurrentHashMap.newKeySet();
+
+    // Where the next sweep continues; null starts from the first placeholder item again
+    private volatile String sweptUpTo;
+
+    private Sinks.Many<EnrichmentTask> queue;
+    private Disposable worker;
+
+    @PostConstruct
+    void start() {
+        queue = Sinks.many().multicast().onBackpressureBuffer(queueCapacity, false);
+        worker = queue.asFlux()
+                .flatMap(this::enrich, concurrency)
+                .subscribe();
+    }
+
+    @PreDestroy
+    void stop() {
+        worker.dispose();
+    }
+
+    /** Queues the item for an image lookup; returns false if the queue is full. */
+    public boolean enqueue(MenuItem menuItem) {
+        if (!pending.add(menuItem.getId())) {
+            return true;
+        }
+        Sinks.EmitResult result;
+        synchronized (this) {
+            // Sinks don't allow concurrent emitters
+            result = queue.tryEmitNext(new EnrichmentTask(menuItem.getId(), menuItem.getAdminId(), menuItem.getName()));
+        }
+        if (result.isFailure()) {
+            pending.remove(menuItem.getId());
+            dropped.incrementAndGet();
+            logger.warn("Image enrichment queue is full, menu item {} keeps the placeholder", menuItem.getId());
+            return false;
+        }
+        return true;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void sweepOnStartup() {
+        if (sweepOnStartup) {
+            sweep();
+        }
+    }
+
+    // Re-queues items left with the placeholder by a restart, a full queue or a failed lookup
+    @Scheduled(fixedDelayString = "${app.images.enrichment.sweep-interval-ms:900000}",
+            initialDelayString = "${app.images.enrichment.sweep-interval-ms:900000}")
+    public void sweep() {
+        if (pexelsService.getCircuitState() == CircuitBreaker.State.OPEN) {
+            // Every lookup would fail straight away; the next sweep tries again
+            return;
+        }
+        int space = queueCapacity - pending.size();
+        if (space <= 0) {
+            return;
+        }
+
+        Criteria criteria = Criteria.where("imageUrl").is(PexelsService.PLACEHOLDER_IMAGE_URL);
+        String after = sweptUpTo;
+        if (after != null) {
+            criteria = criteria.and("id").gt(ObjectId.isValid(after) ? new ObjectId(after) : after);
+        }
+        Query query = Query.query(criteria).with(Sort.by("id")).limit(space);
+        query.fields().include("adminId", "name");
+        List<MenuItem> menuItems = mongoTemplate.find(query, MenuItem.class);
+
+        int queued = 0;
+        for (MenuItem menuItem : menuItems) {
+            if (!enqueue(menuItem)) {
+                break;
+            }
+            sweptUpTo = menuItem.getId();
+            queued++;
+        }
+        if (menuItems.size() < space && queued == menuItems.size()) {
+            // Reached the last placeholder item; start over next time
+            sweptUpTo = null;
+        }
+        if (queued > 0) {
+            logger.info("Queued {} menu items for image enrichment", queued);
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enriched", enriched.get());
+        stats.put("failed", failed.get());
+        stats.put("dropped", dropped.get());
+        stats.put("circuit", pexelsService.getCircuitState().toString());
+        return stats;
+    }
+
+    private Mono<Void> enrich(EnrichmentTask task) {
+        return pexelsService.findImageUrl(task.name)
+                .flatMap(imageUrl -> Mono.fromRunnable(() -> applyImage(task, imageUrl))
+                        .subscribeOn(Schedulers.boundedElastic()))
+                .onErrorResume(e -> {
+                    failed.incrementAndGet();
+                    logger.warn("Image lookup for menu item {} failed: {}", task.menuItemId, e.getMessage());
+                    return Mono.empty();
+                })
+                .doFinally(signal -> pending.remove(task.menuItemId))
+                .then();
+    }
+
+    private void applyImage(EnrichmentTask task, String imageUrl) {
+        Query query = Query.query(Criteria.where("id").is(task.menuItemId)
+                .and("imageUrl").is(PexelsService.PLACEHOLDER_IMAGE_URL));
+        if (mongoTemplate.updateFirst(query, new Update().set("imageUrl", imageUrl), MenuItem.class)
+                .getModifiedCount() > 0) {
+            enriched.incrementAndGet();
+            eventPublisher.publishEvent(new MenuChangedEvent(task.adminId));
+        }
+    }
+
+    private static class EnrichmentTask {
+        final String menuItemId;
+        final String adminId;
+        final String name;
+
+        EnrichmentTask(String menuItemId, String adminId, String name) {
+            this.menuItemId = menuItemId;
+            this.adminId = adminId;
+            this.name = name;
+        }
+    }
+}
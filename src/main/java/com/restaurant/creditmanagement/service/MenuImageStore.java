@@ -0,0 +1,313 @@
+package com.restaurant.creditmanagement.service;
+
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import javax.annotation.PostConstruct;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.URI;
+import java.net.UnknownHostException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Local disk store of fixed-size JPEG thumbnails for menu item images. The source image is
+ * downloaded once per menu item, cropped and scaled to the configured size, and written next to
+ * a sidecar holding its strong ETag (a hash of the thumbnail bytes). Menu item writes evict the
+ * files so the next request regenerates them from the new image URL.
+ * <p>
+ * Image URLs are set by clients, so only hosts in {@code app.images.allowed-hosts} are fetched,
+ * and never when they resolve to a loopback, private or link-local address. Sources are
+ * measured before they are decoded and refused above {@code app.images.max-source-pixels}.
+ */
+@Service
+public class MenuImageStore {
+    private static final Logger logger = LoggerFactory.getLogger(MenuImageStore.class);
+    private static final int MAX_DOWNLOAD_BYTES = 5 * 1024 * 1024;
+
+    @Autowired
+    private WebClient.Builder webClientBuilder;
+
+    @Value("${app.images.store-dir:${java.io.tmpdir}/menu-images}")
+    private String storeDir;
+
+    @Value("${app.images.thumbnail-width:400}")
+    private int thumbnailWidth;
+
+    @Value("${app.images.thumbnail-height:300}")
+    private int thumbnailHeight;
+
+    @Value("${app.images.download-timeout-ms:10000}")
+    private long downloadTimeoutMillis;
+
+    // The image CDN the enrichment fills URLs from; subdomains of a listed host are allowed too
+    @Value("${app.images.allowed-hosts:images.pexels.com}")
+    private List<String> allowedHosts;
+
+    @Value("${app.images.max-source-pixels:16000000}")
+    private long maxSourcePixels;
+
+    private Path root;
+    private WebClient webClient;
+
+    // One lock per menu item so concurrent first requests generate the thumbnail only once
+    private final ConcurrentHashMap<String, Object> locks = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void init() throws IOException {
+        root = Files.createDirectories(Paths.get(storeDir));
+        webClient = webClientBuilder
+                .codecs(codecs -> codecs.defaultCodecs().maxInMemorySize(MAX_DOWNLOAD_BYTES))
+                .build();
+    }
+
+    public static class StoredImage {
+        private final Path file;
+        private final String etag;
+
+        StoredImage(Path file, String etag) {
+            this.file = file;
+            this.etag = etag;
+        }
+
+        public Path getFile() { return file; }
+
+        // Quoted, ready for the ETag header
+        public String getEtag() { return etag; }
+    }
+
+    /** The stored thumbnail for the menu item, or null if none has been generated yet. */
+    public StoredImage find(String menuItemId) throws IOException {
+        if (!ObjectId.isValid(menuItemId)) {
+            return null;
+        }
+        Path image = imagePath(menuItemId);
+        Path etag = etagPath(menuItemId);
+        if (!Files.exists(image) || !Files.exists(etag)) {
+            return null;
+        }
+        return new StoredImage(image, new String(Files.readAllBytes(etag), StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * Returns the stored thumbnail, downloading and generating it from {@code sourceUrl} first
+     * if needed. Returns null when the source can't be fetched or decoded.
+     */
+    public StoredImage getOrCreate(String menuItemId, String sourceUrl) throws IOException {
+        StoredImage stored = find(menuItemId);
+        if (stored != null || !ObjectId.isValid(menuItemId) || !isAllowedSource(sourceUrl)) {
+            return stored;
+        }
+
+        Object lock = locks.computeIfAbsent(menuItemId, id -> new Object());
+        try {
+            synchronized (lock) {
+                stored = find(menuItemId);
+                if (stored != null) {
+                    return stored;
+                }
+                byte[] thumbnail = createThumbnail(download(sourceUrl));
+                if (thumbnail == null) {
+                    return null;
+                }
+                String etag = "\"" + hash(thumbnail) + "\"";
+                // Image first, sidecar last: find() only serves an image once its ETag exists
+                writeAtomically(imagePath(menuItemId), thumbnail);
+                writeAtomically(etagPath(menuItemId), etag.getBytes(StandardCharsets.US_ASCII));
+                return new StoredImage(imagePath(menuItemId), etag);
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Could not store image for menu item {}: {}", menuItemId, e.getMessage());
+            return null;
+        } finally {
+            locks.remove(menuItemId, lock);
+        }
+    }
+
+    public void evict(String menuItemId) {
+        if (!ObjectId.isValid(menuItemId)) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(etagPath(menuItemId));
+            Files.deleteIfExists(imagePath(menuItemId));
+        } catch (IOException e) {
+            logger.warn("Could not evict stored image for menu item {}: {}", menuItemId, e.getMessage());
+        }
+    }
+
+    public static boolean isHttpUrl(String url) {
+        return url != null && (url.startsWith("http://") || url.startsWith("https://"));
+    }
+
+    /** True if the URL is http(s) on one of the allowed image hosts. */
+    public boolean isAllowedSource(String url) {
+        if (!isHttpUrl(url)) {
+            return false;
+        }
+        String host;
+        try {
+            host = URI.create(url).getHost();
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+        if (host == null) {
+            return false;
+        }
+        host = host.toLowerCase(Locale.ROOT);
+        for (String allowed : allowedHosts) {
+            String allowedHost = allowed.trim().toLowerCase(Locale.ROOT);
+            if (!allowedHost.isEmpty() && (host.equals(allowedHost) || host.endsWith("." + allowedHost))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private byte[] download(String sourceUrl) {
+        String host = URI.create(sourceUrl).getHost();
+        try {
+            for (InetAddress address : InetAddress.getAllByName(host)) {
+                if (isInternal(address)) {
+                    throw new IllegalArgumentException("Image host " + host + " resolves to an internal address");
+                }
+            }
+        } catch (UnknownHostException e) {
+            throw new IllegalArgumentException("Unknown image host " + host);
+        }
+        // Redirects aren't followed, so the checked host is the one that answers
+        return webClient.get()
+                .uri(sourceUrl)
+                .retrieve()
+                .bodyToMono(byte[].class)
+                .timeout(Duration.ofMillis(downloadTimeoutMillis))
+                .block();
+    }
+
+    private static boolean isInternal(InetAddress address) {
+        if (address.isAnyLocalAddress() || address.isLoopbackAddress() || address.isSiteLocalAddress()
+                || address.isLinkLocalAddress() || address.isMulticastAddress()) {
+            return true;
+        }
+        // IPv6 unique local addresses (fc00::/7)
+        byte[] bytes = address.getAddress();
+        return bytes.length == 16 && (bytes[0] & 0xfe) == 0xfc;
+    }
+
+    // Scales to cover the target size, then crops the centre, so every thumbnail has the same shape
+    private byte[] createThumbnail(byte[] source) throws IOException {
+        if (source == null) {
+            return null;
+        }
+        BufferedImage original = decode(source);
+        if (original == null) {
+            return null;
+        }
+
+        double scale = Math.max((double) thumbnailWidth / original.getWidth(),
+                (double) thumbnailHeight / original.getHeight());
+        int scaledWidth = (int) Math.ceil(original.getWidth() * scale);
+        int scaledHeight = (int) Math.ceil(original.getHeight() * scale);
+
+        BufferedImage thumbnail = new BufferedImage(thumbnailWidth, thumbnailHeight, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = thumbnail.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(original, (thumbnailWidth - scaledWidth) / 2, (thumbnailHeight - scaledHeight) / 2,
+                    scaledWidth, scaledHeight, null);
+        } finally {
+            graphics.dispose();
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(thumbnail, "jpg", out);
+        return out.toByteArray();
+    }
+
+    /*
+     * Reads the dimensions from the header first, so a small file that would decode to a huge
+     * bitmap is refused before any pixels are allocated. Large sources are subsampled while
+     * decoding, never below the thumbnail size.
+     */
+    private BufferedImage decode(byte[] source) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(new ByteArrayInputStream(source))) {
+            Iterator<ImageReader> readers = input != null ? ImageIO.getImageReaders(input) : null;
+            if (readers == null || !readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if (width <= 0 || height <= 0 || (long) width * height > maxSourcePixels) {
+                    throw new IllegalArgumentException("Image of " + width + "x" + height + " pixels is too large");
+                }
+                ImageReadParam param = reader.getDefaultReadParam();
+                int step = Math.max(1, Math.min(width / thumbnailWidth, height / thumbnailHeight));
+                param.setSourceSubsampling(step, step, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private void writeAtomically(Path target, byte[] content) throws IOException {
+        Path temp = Files.createTempFile(root, target.getFileName().toString(), ".tmp");
+        try {
+            Files.write(temp, content);
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private static String hash(byte[] content) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(content);
+            StringBuilder hex = new StringBuilder();
+            for (int i = 0; i < 16; i++) {
+                hex.append(String.format("%02x", digest[i]));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // Only ObjectId hex strings reach these, so ids can't escape the store directory
+    private Path imagePath(String menuItemId) {
+        return root.resolve(menuItemId + ".jpg");
+    }
+
+    private Path etagPath(String menuItemId) {
+        return root.resolve(menuItemId + ".etag");
+    }
+}
@@ -1,12 +1,24 @@
 package com.restaurant.creditmanagement.service;
 
+import com.restaurant.creditmanagement.cache.TtlCache;
+import com.restaurant.creditmanagement.event.MenuChangedEvent;
 import com.restaurant.creditmanagement.model.MenuItem;
 import com.restaurant.creditmanagement.repository.MenuItemRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Service
 public class MenuItemService {
@@ -15,22 +27,38 @@ public class MenuItemService {
     private MenuItemRepository menuItemRepository;
     
     @Autowired
-    private PexelsService pexelsService;
+    private MenuImageEnrichmentService imageEnrichmentService;
+
+    @Autowired
+    private MenuImageStore menuImageStore;
+
+    @Autowired
+    private MenuSnapshotService menuSnapshotService;
+
+    // Each admin's whole menu by id, for the order and rollup hot paths. Menu writes on this
+    // instance invalidate the admin's entry; the TTL bounds staleness from other instances.
+    // Cached items never leave this class: callers get copies, so a setter can't change the cache.
+    private final TtlCache<String, Map<String, MenuItem>> menus = new TtlCache<>(1_000, Duration.ofMinutes(5));
+
+    // Bumped by every invalidation so a load that raced with a write isn't cached
+    private final AtomicLong menuVersion = new AtomicLong();
     
     public MenuItem addMenuItem(MenuItem menuItem) {
         if (menuItem.getAdminId() == null) {
             throw new IllegalArgumentException("Admin ID cannot be null");
         }
         
-        // Fetch image URL from Pexels based on item name
-        String imageUrl = pexelsService.getImageUrlForFood(menuItem.getName());
-        menuItem.setImageUrl(imageUrl);
+        // Saved straight away with a placeholder; the image is looked up in the background
+        menuItem.setImageUrl(PexelsService.PLACEHOLDER_IMAGE_URL);
         
         // Set default values
         if (menuItem.getIsSpecial() == null) menuItem.setIsSpecial(false);
         if (menuItem.isAvailable() == null) menuItem.setAvailable(true);
         
-        return menuItemRepository.save(menuItem);
+        MenuItem saved = menuItemRepository.save(menuItem);
+        menuChanged(saved.getAdminId());
+        imageEnrichmentService.enqueue(saved);
+        return saved;
     }
     
     public MenuItem updateExistingMenuItem(String id, MenuItem updatedMenuItem) {
@@ -44,21 +72,27 @@ public class MenuItemService {
                     existingItem.setImageUrl(updatedMenuItem.getImageUrl());
                     existingItem.setIsSpecial(updatedMenuItem.getIsSpecial());
                     existingItem.setRating(updatedMenuItem.getRating());
-                    return menuItemRepository.save(existingItem);
+                    MenuItem saved = menuItemRepository.save(existingItem);
+                    menuChanged(saved.getAdminId());
+                    menuImageStore.evict(id);
+                    return saved;
                 })
                 .orElseThrow(() -> new RuntimeException("Menu item not found with id: " + id));
     }
 
     public MenuItem saveMenuItem(MenuItem menuItem) {
-        return menuItemRepository.save(menuItem);
+        MenuItem saved = menuItemRepository.save(menuItem);
+        menuChanged(saved.getAdminId());
+        menuImageStore.evict(saved.getId());
+        return saved;
     }
 
     public List<MenuItem> getAllMenuItems(String adminId) {
-        return menuItemRepository.findByAdminId(adminId);
+        return copies(menuFor(adminId).values());
     }
 
     public List<MenuItem> getMenuItemsByAdminId(String adminId) {
-        return menuItemRepository.findByAdminId(adminId);
+        return copies(menuFor(adminId).values());
     }
 
     public MenuItem getMenuItemById(String id) {
@@ -66,8 +100,96 @@ public class MenuItemService {
                 .orElseThrow(() -> new RuntimeException("Menu item not found with id: " + id));
     }
 
+    // Served from the admin's cached menu; falls back to Mongo for ids it doesn't hold, still scoped to the admin
+    public MenuItem getMenuItemById(String id, String adminId) {
+        MenuItem menuItem = menuFor(adminId).get(id);
+        if (menuItem != null) {
+            return new MenuItem(menuItem);
+        }
+        return menuItemRepository.findByIdAndAdminId(id, adminId)
+                .orElseThrow(() -> new RuntimeException("Menu item not found with id: " + id));
+    }
+
+    /**
+     * Resolves several menu items keyed by id, from the admin's cached menu where possible.
+     * Ids it doesn't hold are loaded with a single query on the ids and the admin; ids that
+     * don't exist, or belong to another admin, are simply absent from the result.
+     */
+    public Map<String, MenuItem> getMenuItemsByIds(String adminId, Collection<String> ids) {
+        Map<String, MenuItem> menu = menuFor(adminId);
+        Map<String, MenuItem> menuItems = new HashMap<>();
+        Set<String> missing = new HashSet<>();
+        for (String id : ids) {
+            MenuItem menuItem = menu.get(id);
+            if (menuItem != null) {
+                menuItems.put(id, new MenuItem(menuItem));
+            } else {
+                missing.add(id);
+            }
+        }
+
+        if (!missing.isEmpty()) {
+            for (MenuItem menuItem : menuItemRepository.findByIdInAndAdminId(missing, adminId)) {
+                menuItems.put(menuItem.getId(), menuItem);
+            }
+        }
+        return menuItems;
+    }
+
     public MenuItem updateMenuItem(MenuItem menuItem) {
-        return menuItemRepository.save(menuItem);
+        MenuItem saved = menuItemRepository.save(menuItem);
+        menuChanged(saved.getAdminId());
+        menuImageStore.evict(saved.getId());
+        return saved;
+    }
+
+    public Map<String, Object> getCacheStats() {
+        long hits = menus.getHits();
+        long misses = menus.getMisses();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("hits", hits);
+        stats.put("misses", misses);
+        stats.put("hitRate", hits + misses > 0 ? (double) hits / (hits + misses) : 0.0);
+        stats.put("cachedMenus", menus.size());
+        return stats;
+    }
+
+    private static List<MenuItem> copies(Collection<MenuItem> menuItems) {
+        List<MenuItem> copies = new ArrayList<>(menuItems.size());
+        for (MenuItem menuItem : menuItems) {
+            copies.add(new MenuItem(menuItem));
+        }
+        return copies;
+    }
+
+    private Map<String, MenuItem> menuFor(String adminId) {
+        Map<String, MenuItem> menu = menus.get(adminId);
+        if (menu != null) {
+            return menu;
+        }
+
+        long version = menuVersion.get();
+        Map<String, MenuItem> loaded = new LinkedHashMap<>();
+        for (MenuItem menuItem : menuItemRepository.findByAdminId(adminId)) {
+            loaded.put(menuItem.getId(), menuItem);
+        }
+        menu = Collections.unmodifiableMap(loaded);
+        if (menuVersion.get() == version) {
+            menus.put(adminId, menu);
+        }
+        return menu;
+    }
+
+    @EventListener
+    public void onMenuChanged(MenuChangedEvent event) {
+        menuChanged(event.getAdminId());
+    }
+
+    // Drops the near-cache entry and moves the admin's menu to a new snapshot version
+    private void menuChanged(String adminId) {
+        menuVersion.incrementAndGet();
+        menus.invalidate(adminId);
+        menuSnapshotService.bumpVersion(adminId);
     }
 
     public void deleteMenuItem(String menuItemId, String adminId) {
@@ -79,5 +201,7 @@ public class MenuItemService {
         }
 
         menuItemRepository.deleteById(menuItemId);
+        menuChanged(adminId);
+        menuImageStore.evict(menuItemId);
     }
 }
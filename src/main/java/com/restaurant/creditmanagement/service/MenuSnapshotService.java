@@ -0,0 +1,93 @@
+package com.restaurant.creditmanagement.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.restaurant.creditmanagement.cache.TtlCache;
+import com.restaurant.creditmanagement.model.MenuVersion;
+import com.restaurant.creditmanagement.repository.MenuItemRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+
+/**
+ * Serialized menu snapshots for the menu list endpoints. Every menu write bumps the admin's
+ * version in Mongo, so all instances agree on it; a snapshot is the menu's JSON bytes built once
+ * per version, and the version doubles as the ETag clients revalidate with.
+ */
+@Service
+public class MenuSnapshotService {
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private MenuItemRepository menuItemRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final TtlCache<String, MenuSnapshot> snapshots = new TtlCache<>(1_000, Duration.ofHours(1));
+
+    public static class MenuSnapshot {
+        private final long version;
+        private final String etag;
+        private final byte[] body;
+
+        MenuSnapshot(long version, String etag, byte[] body) {
+            this.version = version;
+            this.etag = etag;
+            this.body = body;
+        }
+
+        public long getVersion() { return version; }
+        public String getEtag() { return etag; }
+        public byte[] getBody() { return body; }
+    }
+
+    /** Call after the admin's menu items were written. */
+    public void bumpVersion(String adminId) {
+        if (adminId == null) {
+            return;
+        }
+        mongoTemplate.upsert(Query.query(Criteria.where("adminId").is(adminId)),
+                new Update().inc("version", 1), MenuVersion.class);
+        snapshots.invalidate(adminId);
+    }
+
+    public long getVersion(String adminId) {
+        MenuVersion version = mongoTemplate.findById(adminId, MenuVersion.class);
+        return version != null ? version.getVersion() : 0;
+    }
+
+    // The URL is the same for every admin, so the admin is part of the tag
+    public String etagFor(String adminId, long version) {
+        return "\"" + adminId + "-" + version + "\"";
+    }
+
+    /**
+     * The snapshot for the current version, serialized on first use. The version is read before
+     * the menu, so a write landing in between only makes the snapshot newer than its tag, and
+     * the next request rebuilds it under the bumped version.
+     */
+    public MenuSnapshot getSnapshot(String adminId, long version) {
+        MenuSnapshot snapshot = snapshots.get(adminId);
+        if (snapshot != null && snapshot.getVersion() == version) {
+            return snapshot;
+        }
+
+        try {
+            // Straight from Mongo: the near-cache may still hold writes made on another instance
+            byte[] body = objectMapper.writeValueAsBytes(menuItemRepository.findByAdminId(adminId));
+            snapshot = new MenuSnapshot(version, etagFor(adminId, version), body);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Failed to serialize menu: " + e.getMessage(), e);
+        }
+        snapshots.put(adminId, snapshot);
+        return snapshot;
+    }
+}
@@ -0,0 +1,312 @@
+package com.restaurant.creditmanagement.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.mongodb.bulk.BulkWriteError;
+import com.restaurant.creditmanagement.config.OrderLineStorage;
+import com.restaurant.creditmanagement.dto.ImportReport;
+import com.restaurant.creditmanagement.dto.OrderImportLine;
+import com.restaurant.creditmanagement.model.Customer;
+import com.restaurant.creditmanagement.model.MenuItem;
+import com.restaurant.creditmanagement.model.Order;
+import com.restaurant.creditmanagement.model.OrderItem;
+import com.restaurant.creditmanagement.model.OrderLine;
+import com.restaurant.creditmanagement.model.OrderStatus;
+import com.restaurant.creditmanagement.model.PaymentMethod;
+import com.restaurant.creditmanagement.repository.CustomerRepository;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Bulk import of historical orders from NDJSON, one order per line. Customers and menu items
+ * are checked against maps loaded once per import, and valid orders are written with unordered
+ * bulk inserts of at most {@code batchSize} orders, with their lines embedded or, in collection
+ * mode, in a second bulk insert of order items. The body is read only as fast as batches
+ * are written, so memory stays bounded by the batch size however large the file is.
+ * <p>
+ * Imported orders are history: they don't reserve credit or change customer balances. After
+ * each batch, the orders that made it in are added to the counters, sales rollups and
+ * customer order stats as deltas, so the cost follows the batch and not the admin's history.
+ */
+@Service
+public class OrderImportService {
+    private static final Logger logger = LoggerFactory.getLogger(OrderImportService.class);
+    private static final int DUPLICATE_KEY = 11000;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private MenuItemService menuItemService;
+
+    @Autowired
+    private CustomerService customerService;
+
+    @Autowired
+    private AdminStatsService adminStatsService;
+
+    @Autowired
+    private SalesRollupService salesRollupService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private OrderLineStorage orderLineStorage;
+
+    @Value("${app.imports.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${app.imports.max-reported-errors:1000}")
+    private int maxReportedErrors;
+
+    public Map<String, Object> importOrders(String adminId, InputStream body) throws IOException {
+        Set<String> customerIds = new HashSet<>();
+        for (Customer customer : customerRepository.findIdsByAdminId(adminId)) {
+            customerIds.add(customer.getId());
+        }
+        Map<String, MenuItem> menu = new HashMap<>();
+        for (MenuItem menuItem : menuItemService.getAllMenuItems(adminId)) {
+            menu.put(menuItem.getId(), menuItem);
+        }
+
+        ObjectReader reader = objectMapper.readerFor(OrderImportLine.class);
+        ImportReport report = new ImportReport(maxReportedErrors);
+        List<PendingOrder> batch = new ArrayList<>(batchSize);
+
+        try (BufferedReader lines = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8), 64 * 1024)) {
+            String line;
+            int lineNumber = 0;
+            while ((line = lines.readLine()) != null) {
+                lineNumber++;
+                if (line.trim().isEmpty()) {
+                    continue;
+                }
+                report.lineRead();
+                try {
+                    OrderImportLine importLine = reader.readValue(line);
+                    batch.add(toPendingOrder(adminId, importLine, lineNumber, customerIds, menu));
+                } catch (JsonProcessingException e) {
+                    report.fail(lineNumber, "Invalid JSON: " + e.getOriginalMessage());
+                } catch (IllegalArgumentException e) {
+                    report.fail(lineNumber, e.getMessage());
+                }
+                if (batch.size() == batchSize) {
+                    try {
+                        writeBatch(batch, report);
+                    } finally {
+                        batch.clear();
+                    }
+                }
+            }
+        } finally {
+            if (!batch.isEmpty()) {
+                writeBatch(batch, report);
+            }
+        }
+
+        logger.info("Imported {} of {} orders for admin {}", report.getImported(), report.getLines(), adminId);
+        return report.toMap();
+    }
+
+    private PendingOrder toPendingOrder(String adminId, OrderImportLine line, int lineNumber,
+                                        Set<String> customerIds, Map<String, MenuItem> menu) {
+        if (line.getCustomerId() == null || !customerIds.contains(line.getCustomerId())) {
+            throw new IllegalArgumentException("Customer not found: " + line.getCustomerId());
+        }
+        if (line.getOrderDate() == null) {
+            throw new IllegalArgumentException("orderDate is required");
+        }
+        if (line.getItems() == null || line.getItems().isEmpty()) {
+            throw new IllegalArgumentException("Order must contain at least one item");
+        }
+        BigDecimal tax = line.getTax() != null ? line.getTax() : BigDecimal.ZERO;
+        if (tax.signum() < 0) {
+            throw new IllegalArgumentException("tax cannot be negative");
+        }
+
+        Order order = new Order();
+        order.setId(new ObjectId().toHexString());
+        order.setAdminId(adminId);
+        order.setCustomerId(line.getCustomerId());
+        order.setExternalId(line.getExternalId());
+        order.setStatus(parseEnum(OrderStatus.class, line.getStatus(), OrderStatus.COMPLETED, "status").name());
+        order.setPaymentMethod(parseEnum(PaymentMethod.class, line.getPaymentMethod(), PaymentMethod.CASH,
+                "paymentMethod").name());
+        order.setNotes(line.getNotes());
+        order.setTax(tax);
+        // Historical orders are dated by when they happened, so reports place them correctly
+        order.setOrderDate(line.getOrderDate());
+        order.setCreatedAt(line.getOrderDate());
+
+        List<OrderLine> lines = new ArrayList<>(line.getItems().size());
+        BigDecimal subtotal = BigDecimal.ZERO;
+        for (OrderImportLine.Item lineItem : line.getItems()) {
+            MenuItem menuItem = menu.get(lineItem.getMenuItemId());
+            if (menuItem == null) {
+                throw new IllegalArgumentException("Menu item not found with id: " + lineItem.getMenuItemId());
+            }
+            if (lineItem.getQuantity() == null || lineItem.getQuantity() <= 0) {
+                throw new IllegalArgumentException("Invalid quantity for menu item: " + lineItem.getMenuItemId());
+            }
+            BigDecimal unitPrice = lineItem.getUnitPrice() != null ? lineItem.getUnitPrice() : menuItem.getPrice();
+            if (unitPrice == null || unitPrice.signum() < 0) {
+                throw new IllegalArgumentException("Invalid unit price for menu item: " + lineItem.getMenuItemId());
+            }
+
+            OrderLine orderLine = new OrderLine();
+            orderLine.setId(new ObjectId().toHexString());
+            orderLine.setMenuItemId(lineItem.getMenuItemId());
+            orderLine.setName(menuItem.getName());
+            orderLine.setCategory(menuItem.getCategory());
+            orderLine.setQuantity(lineItem.getQuantity());
+            orderLine.setUnitPrice(unitPrice);
+            subtotal = subtotal.add(orderLine.getSubtotal());
+            lines.add(orderLine);
+        }
+        order.setTotalAmount(subtotal.add(tax));
+
+        List<OrderItem> items = new ArrayList<>();
+        if (orderLineStorage.isEmbedded()) {
+            order.setLines(lines);
+        } else {
+            List<String> itemIds = new ArrayList<>(lines.size());
+            for (OrderLine orderLine : lines) {
+                items.add(orderLine.toOrderItem(order.getId()));
+                itemIds.add(orderLine.getId());
+            }
+            order.setOrderItemIds(itemIds);
+        }
+        return new PendingOrder(lineNumber, order, items);
+    }
+
+    // Orders first, then any order_items of the orders that made it in, so a rejected order leaves no lines
+    private void writeBatch(List<PendingOrder> batch, ImportReport report) {
+        List<Order> orders = new ArrayList<>(batch.size());
+        for (PendingOrder pending : batch) {
+            orders.add(pending.order);
+        }
+        Set<Integer> rejected = new HashSet<>();
+        try {
+            mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Order.class).insert(orders).execute();
+        } catch (BulkOperationException e) {
+            for (BulkWriteError error : e.getErrors()) {
+                PendingOrder pending = batch.get(error.getIndex());
+                rejected.add(error.getIndex());
+                report.fail(pending.lineNumber, error.getCode() == DUPLICATE_KEY
+                        ? "Order " + pending.order.getExternalId() + " was already imported"
+                        : error.getMessage());
+            }
+        }
+
+        List<OrderItem> items = new ArrayList<>();
+        Map<Integer, PendingOrder> ownerByItemIndex = new HashMap<>();
+        for (int i = 0; i < batch.size(); i++) {
+            if (rejected.contains(i)) {
+                continue;
+            }
+            for (OrderItem item : batch.get(i).items) {
+                ownerByItemIndex.put(items.size(), batch.get(i));
+                items.add(item);
+            }
+        }
+        Set<PendingOrder> incomplete = new HashSet<>();
+        if (!items.isEmpty()) {
+            writeItems(items, ownerByItemIndex, incomplete, report);
+        }
+
+        List<Order> imported = new ArrayList<>(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            if (!rejected.contains(i) && !incomplete.contains(batch.get(i))) {
+                imported.add(batch.get(i).order);
+            }
+        }
+        report.imported(imported.size());
+        recordImported(imported);
+    }
+
+    private void writeItems(List<OrderItem> items, Map<Integer, PendingOrder> ownerByItemIndex,
+                            Set<PendingOrder> incomplete, ImportReport report) {
+        try {
+            mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, OrderItem.class).insert(items).execute();
+        } catch (BulkOperationException e) {
+            for (BulkWriteError error : e.getErrors()) {
+                PendingOrder pending = ownerByItemIndex.get(error.getIndex());
+                if (incomplete.add(pending)) {
+                    report.fail(pending.lineNumber, error.getMessage());
+                }
+            }
+            // An order missing some of its lines would have the wrong total, so take it out again
+            List<String> orderIds = new ArrayList<>();
+            for (PendingOrder pending : incomplete) {
+                orderIds.add(pending.order.getId());
+            }
+            mongoTemplate.remove(Query.query(Criteria.where("orderId").in(orderIds)), OrderItem.class);
+            mongoTemplate.remove(Query.query(Criteria.where("id").in(orderIds)), Order.class);
+        }
+    }
+
+    // Adds the batch to the counters, rollups and customer stats, one bulk write each at most
+    private void recordImported(List<Order> orders) {
+        if (orders.isEmpty()) {
+            return;
+        }
+        BigDecimal revenue = BigDecimal.ZERO;
+        for (Order order : orders) {
+            revenue = revenue.add(order.getTotalAmount());
+        }
+        adminStatsService.recordOrdersCreated(orders.get(0).getAdminId(), orders.size(), revenue);
+        salesRollupService.recordOrders(orders);
+        customerService.recordOrdersPlaced(orders);
+    }
+
+    private static <E extends Enum<E>> E parseEnum(Class<E> type, String value, E defaultValue, String field) {
+        if (value == null || value.trim().isEmpty()) {
+            return defaultValue;
+        }
+        try {
+            return Enum.valueOf(type, value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid " + field + ": " + value);
+        }
+    }
+
+    private static class PendingOrder {
+        final int lineNumber;
+        final Order order;
+        final List<OrderItem> items;
+
+        PendingOrder(int lineNumber, Order order, List<OrderItem> items) {
+            this.lineNumber = lineNumber;
+            this.order = order;
+            this.items = items;
+        }
+    }
+}
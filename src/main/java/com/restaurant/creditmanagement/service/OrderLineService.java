@@ -0,0 +1,72 @@
+package com.restaurant.creditmanagement.service;
+
+import com.restaurant.creditmanagement.model.MenuItem;
+import com.restaurant.creditmanagement.model.Order;
+import com.restaurant.creditmanagement.model.OrderItem;
+import com.restaurant.creditmanagement.model.OrderLine;
+import com.restaurant.creditmanagement.repository.OrderItemRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Reads order lines whichever way they are stored. Embedded lines are used as they are; orders
+ * that still keep theirs in order_items are resolved with one $in query per call, with name and
+ * category filled in from the current menu.
+ */
+@Service
+public class OrderLineService {
+
+    @Autowired
+    private OrderItemRepository orderItemRepository;
+
+    @Autowired
+    private MenuItemService menuItemService;
+
+    public List<OrderLine> linesOf(Order order) {
+        return linesOf(Collections.singletonList(order)).getOrDefault(order.getId(), new ArrayList<>());
+    }
+
+    /** Lines per order id; orders without lines map to an empty list. */
+    public Map<String, List<OrderLine>> linesOf(Collection<Order> orders) {
+        Map<String, List<OrderLine>> linesByOrder = new HashMap<>();
+        List<String> legacyOrderIds = new ArrayList<>();
+        Map<String, String> adminByOrder = new HashMap<>();
+        for (Order order : orders) {
+            if (order.getLines() != null) {
+                linesByOrder.put(order.getId(), order.getLines());
+            } else {
+                linesByOrder.put(order.getId(), new ArrayList<>());
+                legacyOrderIds.add(order.getId());
+                if (order.getAdminId() != null) {
+                    adminByOrder.put(order.getId(), order.getAdminId());
+                }
+            }
+        }
+        if (legacyOrderIds.isEmpty()) {
+            return linesByOrder;
+        }
+
+        Map<String, List<OrderItem>> itemsByAdmin = orderItemRepository.findByOrderIdIn(legacyOrderIds).stream()
+                .collect(Collectors.groupingBy(item -> adminByOrder.getOrDefault(item.getOrderId(), "")));
+        for (Map.Entry<String, List<OrderItem>> entry : itemsByAdmin.entrySet()) {
+            Set<String> menuItemIds = entry.getValue().stream()
+                    .map(OrderItem::getMenuItemId)
+                    .filter(id -> id != null)
+                    .collect(Collectors.toSet());
+            Map<String, MenuItem> menuItems = menuItemService.getMenuItemsByIds(entry.getKey(), menuItemIds);
+            for (OrderItem item : entry.getValue()) {
+                linesByOrder.get(item.getOrderId()).add(OrderLine.of(item, menuItems.get(item.getMenuItemId())));
+            }
+        }
+        return linesByOrder;
+    }
+}
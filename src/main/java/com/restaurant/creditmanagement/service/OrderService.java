@@ -1,13 +1,17 @@
 package com.restaurant.creditmanagement.service;
 
-// Add this import
-import java.time.format.DateTimeFormatter;
-
+import com.restaurant.creditmanagement.config.OrderLineStorage;
+import com.restaurant.creditmanagement.dto.CursorPage;
+import com.restaurant.creditmanagement.dto.OrderFilter;
+import com.restaurant.creditmanagement.dto.PageCursor;
 import com.restaurant.creditmanagement.model.MenuItem;
 import com.restaurant.creditmanagement.model.Order;
 import com.restaurant.creditmanagement.model.OrderItem;
+import com.restaurant.creditmanagement.model.OrderLine;
+import com.restaurant.creditmanagement.model.OrderStatus;
 import com.restaurant.creditmanagement.repository.OrderItemRepository;
 import com.restaurant.creditmanagement.repository.OrderRepository;
+import org.bson.types.ObjectId;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
@@ -16,7 +20,9 @@ import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 @Service
@@ -26,10 +32,7 @@ public class OrderService {
     private OrderRepository orderRepository;
 
     public BigDecimal calculateTotalRevenue(String adminId) {
-        List<Order> orders = orderRepository.findByAdminId(adminId);
-        return orders.stream()
-                .map(Order::getTotalAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        return orderRepository.sumTotalAmount(adminId, null);
     }
 
     @Autowired
@@ -38,35 +41,108 @@ public class OrderService {
     @Autowired
     private OrderItemRepository orderItemRepository;  // Add this line
 
+    @Autowired
+    private AdminStatsService adminStatsService;
+
+    @Autowired
+    private SalesRollupService salesRollupService;
+
+    @Autowired
+    private CustomerService customerService;
+
+    @Autowired
+    private OrderLineService orderLineService;
+
+    @Autowired
+    private OrderLineStorage orderLineStorage;
+
     public Order createOrder(Order order, List<String> menuItemIds, List<Integer> quantities) {
-        // Set creation timestamp
-        order.setCreatedAt(LocalDateTime.now());
+        List<OrderLine> lines = priceOrder(order, menuItemIds, quantities);
+        return saveOrder(order, lines);
+    }
+
+    /**
+     * Builds the order lines for a ticket and prices it on the server. All menu items are
+     * resolved with one multi-get, and the order and line ids are assigned up front so the
+     * order can be written once with its lines (or orderItemIds) already filled in.
+     */
+    public List<OrderLine> priceOrder(Order order, List<String> menuItemIds, List<Integer> quantities) {
+        if (menuItemIds == null || menuItemIds.isEmpty()) {
+            throw new IllegalArgumentException("Order must contain at least one item");
+        }
+        if (quantities == null || quantities.size() != menuItemIds.size()) {
+            throw new IllegalArgumentException("Each menu item must have a quantity");
+        }
+
+        if (order.getId() == null) {
+            order.setId(new ObjectId().toHexString());
+        }
 
-        // Save the order first
-        Order savedOrder = orderRepository.save(order);
+        Map<String, MenuItem> menuItems = menuItemService.getMenuItemsByIds(order.getAdminId(), menuItemIds);
 
-        // Create and save order items
-        List<String> orderItemIds = new ArrayList<>();
+        List<OrderLine> lines = new ArrayList<>(menuItemIds.size());
+        BigDecimal subtotal = BigDecimal.ZERO;
         for (int i = 0; i < menuItemIds.size(); i++) {
-            OrderItem orderItem = new OrderItem();
-            orderItem.setOrderId(savedOrder.getId());
-            orderItem.setMenuItemId(menuItemIds.get(i));
-            orderItem.setQuantity(quantities.get(i));
-
-            // Get menu item to set unit price
-            MenuItem menuItem = menuItemService.getMenuItemById(menuItemIds.get(i));
-            if (menuItem != null) {
-                orderItem.setUnitPrice(menuItem.getPrice());
+            String menuItemId = menuItemIds.get(i);
+            Integer quantity = quantities.get(i);
+            MenuItem menuItem = menuItems.get(menuItemId);
+            if (menuItem == null) {
+                throw new IllegalArgumentException("Menu item not found with id: " + menuItemId);
+            }
+            if (quantity == null || quantity <= 0) {
+                throw new IllegalArgumentException("Invalid quantity for menu item: " + menuItemId);
             }
 
-            OrderItem savedItem = orderItemRepository.save(orderItem);
-            orderItemIds.add(savedItem.getId());
+            OrderLine line = new OrderLine();
+            line.setId(new ObjectId().toHexString());
+            line.setMenuItemId(menuItemId);
+            line.setName(menuItem.getName());
+            line.setCategory(menuItem.getCategory());
+            line.setQuantity(quantity);
+            line.setUnitPrice(menuItem.getPrice());
+
+            subtotal = subtotal.add(line.getSubtotal());
+            lines.add(line);
+        }
+
+        BigDecimal tax = order.getTax() != null ? order.getTax() : BigDecimal.ZERO;
+        order.setTotalAmount(subtotal.add(tax));
+        if (orderLineStorage.isEmbedded()) {
+            order.setLines(lines);
+        } else {
+            order.setOrderItemIds(lines.stream().map(OrderLine::getId).collect(Collectors.toList()));
         }
+        return lines;
+    }
+
+    /**
+     * Persists an order priced by {@link #priceOrder}. Embedded lines are written with the order
+     * in one insert; otherwise the items go in with one bulk insert, then the order.
+     */
+    public Order saveOrder(Order order, List<OrderLine> lines) {
+        order.setCreatedAt(LocalDateTime.now());
 
-        // Update order with order item IDs
-        savedOrder.setOrderItemIds(orderItemIds);
-        orderRepository.save(savedOrder);
+        Order savedOrder;
+        if (order.getLines() != null) {
+            savedOrder = orderRepository.insert(order);
+        } else {
+            List<OrderItem> orderItems = new ArrayList<>(lines.size());
+            for (OrderLine line : lines) {
+                orderItems.add(line.toOrderItem(order.getId()));
+            }
+            orderItemRepository.insert(orderItems);
+            try {
+                savedOrder = orderRepository.insert(order);
+            } catch (RuntimeException e) {
+                // Don't leave orphaned lines behind if the order itself could not be written
+                orderItemRepository.deleteAll(orderItems);
+                throw e;
+            }
+        }
 
+        adminStatsService.recordOrderCreated(savedOrder.getAdminId(), savedOrder.getTotalAmount());
+        salesRollupService.recordOrder(savedOrder);
+        customerService.recordOrderPlaced(savedOrder);
         return savedOrder;
     }
 
@@ -74,22 +150,21 @@ public class OrderService {
         return orderRepository.findByAdminId(adminId);
     }
 
+    public CursorPage<Order> getOrderPage(String adminId, OrderFilter filter, PageCursor after, int size,
+                                          boolean includeDetails) {
+        return orderRepository.findOrderPage(adminId, filter, after, size, includeDetails);
+    }
+
     public List<Order> getAllOrdersByAdmin(String adminId) {
         return orderRepository.findByAdminId(adminId);
     }
 
     public List<Order> getRecentOrders(String adminId) {
-        return orderRepository.findByAdminIdOrderByCreatedAtDesc(adminId)
-                .stream()
-                .limit(5)
-                .collect(Collectors.toList());
+        return orderRepository.findTop5ByAdminIdOrderByCreatedAtDesc(adminId);
     }
 
     public BigDecimal calculateTotalOutstandingCredit(String adminId) {
-        List<Order> creditOrders = orderRepository.findByAdminIdAndPaymentMethod(adminId, "CREDIT");
-        return creditOrders.stream()
-                .map(Order::getTotalAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        return orderRepository.sumTotalAmount(adminId, "CREDIT");
     }
 
     public long getTotalOrderCount(String adminId) {
@@ -103,163 +178,186 @@ public class OrderService {
 
     public void deleteOrder(String id) {
         Order order = getOrderById(id);
-        // First delete all associated order items
-        List<OrderItem> orderItems = orderItemRepository.findByOrderId(order.getId());
-        orderItemRepository.deleteAll(orderItems);
-        // Then delete the order
+        // Orders written in collection mode, or migrated but not yet cleaned up, still have order_items documents
+        if (order.getLines() == null || (order.getOrderItemIds() != null && !order.getOrderItemIds().isEmpty())) {
+            orderItemRepository.deleteByOrderId(order.getId());
+        }
         orderRepository.delete(order);
+        adminStatsService.recordOrderDeleted(order.getAdminId(), order.getTotalAmount());
+        salesRollupService.removeOrder(order);
+        customerService.recordOrderRemoved(order);
     }
 
-    public void updateOrderQuantities(String orderId, Map<String, String> quantities) {
+    /**
+     * Changes line quantities on a PENDING or APPROVED order. The new total is computed from
+     * every line plus tax and written with a conditional update that only matches while the
+     * order is still at the version it was read with and still editable, so concurrent edits
+     * can't both win and a status change in between can't be overwritten. Embedded lines are
+     * written in that same findAndModify. Lines kept in order_items follow in a second write,
+     * and a failure there is undone with a compensating write of the old total, so in that mode
+     * the edit is not atomic. Credit orders take the difference from the customer's credit first.
+     */
+    public Order updateOrderQuantities(String orderId, String adminId, Map<String, Integer> quantities) {
         Order order = getOrderById(orderId);
-        BigDecimal totalAmount = BigDecimal.ZERO;
-
-        for (String orderItemId : order.getOrderItemIds()) {
-            OrderItem item = orderItemRepository.findById(orderItemId).orElse(null);
-            if (item != null) {
-                String quantityStr = quantities.get(item.getId());
-                if (quantityStr != null) {
-                    int newQuantity = Integer.parseInt(quantityStr);
-                    item.setQuantity(newQuantity);
-                    BigDecimal itemPrice = item.getUnitPrice();
-                    BigDecimal itemTotal = itemPrice.multiply(BigDecimal.valueOf(newQuantity));
-                    totalAmount = totalAmount.add(itemTotal);
-                    orderItemRepository.save(item);
-                }
-            }
+        if (!adminId.equals(order.getAdminId())) {
+            throw new IllegalArgumentException("Order not found with id: " + orderId);
+        }
+        if (quantities == null || quantities.isEmpty()) {
+            throw new IllegalArgumentException("No quantities given");
+        }
+        if (!OrderStatus.isEditable(order.getStatus())) {
+            throw new IllegalStateException(OrderStatus.editError(order.getStatus()));
         }
 
-        order.setTotalAmount(totalAmount);
-        orderRepository.save(order);
-    }
+        List<OrderLine> lines = orderLineService.linesOf(order);
+        Map<String, OrderLine> linesById = new HashMap<>();
+        for (OrderLine line : lines) {
+            linesById.put(line.getId(), line);
+        }
 
-    public Order updateOrder(Order order) {
-        if (order.getId() == null) {
-            throw new IllegalArgumentException("Order ID cannot be null");
+        Map<String, Integer> changes = new HashMap<>();
+        for (Map.Entry<String, Integer> entry : quantities.entrySet()) {
+            OrderLine line = linesById.get(entry.getKey());
+            if (line == null) {
+                throw new IllegalArgumentException("Order item not found with id: " + entry.getKey());
+            }
+            if (entry.getValue() == null || entry.getValue() <= 0) {
+                throw new IllegalArgumentException("Invalid quantity for order item: " + entry.getKey());
+            }
+            if (!entry.getValue().equals(line.getQuantity())) {
+                changes.put(entry.getKey(), entry.getValue());
+            }
+        }
+        if (changes.isEmpty()) {
+            return order;
         }
 
-        // Verify order exists
-        Order existingOrder = getOrderById(order.getId());
-        if (existingOrder == null) {
-            throw new IllegalArgumentException("Order not found");
+        List<OrderLine> updatedLines = new ArrayList<>(lines.size());
+        BigDecimal newTotal = order.getTax() != null ? order.getTax() : BigDecimal.ZERO;
+        for (OrderLine line : lines) {
+            OrderLine updated = changes.containsKey(line.getId()) ? line.withQuantity(changes.get(line.getId())) : line;
+            updatedLines.add(updated);
+            newTotal = newTotal.add(updated.getSubtotal());
+        }
+        BigDecimal oldTotal = order.getTotalAmount();
+        BigDecimal delta = newTotal.subtract(oldTotal != null ? oldTotal : BigDecimal.ZERO);
+
+        boolean creditOrder = "CREDIT".equalsIgnoreCase(order.getPaymentMethod());
+        boolean reserved = false;
+        if (creditOrder && delta.signum() > 0) {
+            if (!customerService.reserveCredit(order.getCustomerId(), adminId, delta).isPresent()) {
+                throw new IllegalArgumentException("Total credit balance would exceed credit limit");
+            }
+            reserved = true;
         }
 
-        // Save the updated order
-        return orderRepository.save(order);
-    }
-    public List<Map<String, Object>> getTopSellingItems(String adminId) {
-        List<Map<String, Object>> topItems = new ArrayList<>();
-        List<Order> orders = orderRepository.findByAdminId(adminId);
+        boolean embedded = order.getLines() != null;
+        Order updatedOrder = embedded
+                ? orderRepository.updateLines(orderId, adminId, order.getVersion(), updatedLines, newTotal)
+                : orderRepository.updateTotalAmount(orderId, adminId, order.getVersion(), newTotal);
+        if (updatedOrder == null) {
+            if (reserved) {
+                customerService.releaseCredit(order.getCustomerId(), adminId, delta);
+            }
+            String status = orderRepository.findById(orderId).map(Order::getStatus).orElse(null);
+            if (status != null && !OrderStatus.isEditable(status)) {
+                throw new IllegalStateException(OrderStatus.editError(status));
+            }
+            throw new IllegalStateException("Order was changed by another request, please retry");
+        }
 
-        Map<String, Integer> quantityMap = new HashMap<>();
-        Map<String, Double> revenueMap = new HashMap<>();
-
-        for (Order order : orders) {
-            for (String orderItemId : order.getOrderItemIds()) {
-                OrderItem item = orderItemRepository.findById(orderItemId).orElse(null);
-                if (item != null) {
-                    MenuItem menuItem = menuItemService.getMenuItemById(item.getMenuItemId());
-                    if (menuItem != null) {
-                        String itemName = menuItem.getName();
-                        quantityMap.merge(itemName, item.getQuantity(), Integer::sum);
-                        revenueMap.merge(itemName,
-                            item.getQuantity() * item.getUnitPrice().doubleValue(),
-                            Double::sum);
-                    }
+        if (!embedded) {
+            try {
+                orderItemRepository.updateQuantities(orderId, changes);
+            } catch (RuntimeException e) {
+                // Put the old total back so it keeps matching the lines that are still stored
+                orderRepository.restoreTotalAmount(orderId, adminId, updatedOrder.getVersion(), oldTotal);
+                if (reserved) {
+                    customerService.releaseCredit(order.getCustomerId(), adminId, delta);
                 }
+                throw e;
             }
         }
 
-        // Convert to required format
-        quantityMap.forEach((name, quantity) -> {
-            Map<String, Object> item = new HashMap<>();
-            item.put("name", name);
-            item.put("quantity", quantity);
-            item.put("revenue", revenueMap.get(name));
-            topItems.add(item);
-        });
+        if (creditOrder && delta.signum() < 0) {
+            customerService.releaseCredit(order.getCustomerId(), adminId, delta.negate());
+        }
+        adminStatsService.recordRevenueChange(adminId, delta);
+        customerService.recordOrderAmountChanged(order, delta);
 
-        return topItems;
+        salesRollupService.removeOrder(order);
+        salesRollupService.recordOrder(updatedOrder);
+        return updatedOrder;
     }
 
-    public List<Map<String, Object>> getCategoryPerformance(String adminId) {
-        List<Map<String, Object>> performance = new ArrayList<>();
-        List<Order> orders = orderRepository.findByAdminId(adminId);
-
-        Map<String, Integer> orderCount = new HashMap<>();
-        Map<String, Double> revenueCount = new HashMap<>();
-
-        for (Order order : orders) {
-            for (String orderItemId : order.getOrderItemIds()) {
-                OrderItem item = orderItemRepository.findById(orderItemId).orElse(null);
-                if (item != null) {
-                    MenuItem menuItem = menuItemService.getMenuItemById(item.getMenuItemId());
-                    if (menuItem != null) {
-                        String category = menuItem.getCategory();
-                        orderCount.merge(category, 1, Integer::sum);
-                        revenueCount.merge(category,
-                            item.getQuantity() * item.getUnitPrice().doubleValue(),
-                            Double::sum);
-                    }
-                }
+    /**
+     * Updates the fields an admin may edit directly. A status change goes through
+     * {@link #transitionStatus}, so it has to be an allowed transition; paymentMethod and notes
+     * are set with a targeted update, leaving lines, totals and version alone. Returns empty if
+     * the order doesn't exist for this admin.
+     */
+    public Optional<Order> updateOrder(String orderId, String adminId, String status, String paymentMethod,
+                                       String notes) {
+        Optional<Order> current = orderRepository.findById(orderId)
+                .filter(order -> adminId.equals(order.getAdminId()));
+        if (!current.isPresent()) {
+            return Optional.empty();
+        }
+        if (status != null && !status.equalsIgnoreCase(current.get().getStatus())) {
+            OrderStatus target;
+            try {
+                target = OrderStatus.valueOf(status.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Invalid status: " + status);
+            }
+            if (!transitionStatus(orderId, adminId, target).isPresent()) {
+                return Optional.empty();
             }
         }
-
-        orderCount.forEach((category, orderTotal) -> {
-            Map<String, Object> categoryData = new HashMap<>();
-            categoryData.put("category", category);
-            categoryData.put("orders", orderTotal);
-            categoryData.put("revenue", revenueCount.get(category));
-            performance.add(categoryData);
-        });
-
-        return performance;
+        return Optional.ofNullable(orderRepository.updateDetails(orderId, adminId, paymentMethod, notes));
     }
 
-    public List<Map<String, Object>> getPeakHours(String adminId) {
-        List<Map<String, Object>> peakHours = new ArrayList<>();
-        List<Order> orders = orderRepository.findByAdminId(adminId);
-
-        Map<String, Integer> hourlyOrders = new HashMap<>();
-
-        for (Order order : orders) {
-            String hour = order.getOrderDate().format(DateTimeFormatter.ofPattern("HH:00"));
-            hourlyOrders.merge(hour, 1, Integer::sum);
+    /**
+     * Applies a status transition in one round trip. Returns empty if the order doesn't exist
+     * for this admin, and throws IllegalStateException if its current status doesn't allow the
+     * transition; only that failure path reads the order, to tell the two apart.
+     */
+    public Optional<Order> transitionStatus(String orderId, String adminId, OrderStatus target) {
+        Order updated = orderRepository.transitionStatus(orderId, adminId, target);
+        if (updated != null) {
+            return Optional.of(updated);
         }
 
-        hourlyOrders.forEach((hour, count) -> {
-            Map<String, Object> hourData = new HashMap<>();
-            hourData.put("hour", hour);
-            hourData.put("orders", count);
-            peakHours.add(hourData);
-        });
+        Optional<Order> current = orderRepository.findById(orderId)
+                .filter(order -> adminId.equals(order.getAdminId()));
+        if (current.isPresent()) {
+            throw new IllegalStateException(target.transitionError(current.get().getStatus()));
+        }
+        return Optional.empty();
+    }
 
-        return peakHours;
+    public List<Map<String, Object>> getTopSellingItems(String adminId) {
+        return getTopSellingItems(adminId, "quantity", 0);
     }
 
-    public List<Map<String, Object>> getWeeklyTrends(String adminId) {
-        List<Map<String, Object>> trends = new ArrayList<>();
-        List<Order> orders = orderRepository.findByAdminId(adminId);
+    public List<Map<String, Object>> getTopSellingItems(String adminId, String sortBy, int limit) {
+        return orderRepository.aggregateTopSellingItems(adminId, sortBy, limit);
+    }
 
-        Map<String, Integer> dailyOrders = new HashMap<>();
-        Map<String, Double> dailyRevenue = new HashMap<>();
+    public List<Map<String, Object>> getCategoryPerformance(String adminId) {
+        return getCategoryPerformance(adminId, "revenue", 0);
+    }
 
-        for (Order order : orders) {
-            String day = order.getOrderDate().getDayOfWeek().toString();
-            dailyOrders.merge(day, 1, Integer::sum);
-            // Convert BigDecimal to Double
-            dailyRevenue.merge(day, order.getTotalAmount().doubleValue(), Double::sum);
-        }
+    public List<Map<String, Object>> getCategoryPerformance(String adminId, String sortBy, int limit) {
+        return orderRepository.aggregateCategoryPerformance(adminId, sortBy, limit);
+    }
 
-        dailyOrders.forEach((day, orderCount) -> {
-            Map<String, Object> dayData = new HashMap<>();
-            dayData.put("day", day);
-            dayData.put("orders", orderCount);
-            dayData.put("revenue", dailyRevenue.get(day));
-            trends.add(dayData);
-        });
+    public List<Map<String, Object>> getPeakHours(String adminId) {
+        return salesRollupService.getPeakHours(adminId);
+    }
 
-        return trends;
+    public List<Map<String, Object>> getWeeklyTrends(String adminId) {
+        return salesRollupService.getWeeklyTrends(adminId);
     }
 
     public double getAverageOrderValue(String adminId) {
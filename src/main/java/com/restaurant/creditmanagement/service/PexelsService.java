@@ -1,45 +1,137 @@
 package com.restaurant.creditmanagement.service;
 
+import com.restaurant.creditmanagement.cache.TtlCache;
+import com.restaurant.creditmanagement.util.CircuitBreaker;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
 
+import javax.annotation.PostConstruct;
+import java.time.Duration;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeoutException;
 
 @Service
 public class PexelsService {
-    
+
+    // Stored on menu items until the background enrichment has found a real image
+    public static final String PLACEHOLDER_IMAGE_URL = "default-food-image-url.jpg";
+
     @Value("${pexels.api.key}")
     private String apiKey;
-    
-    private final String PEXELS_API_URL = "https://api.pexels.com/v1/search";
-    private final RestTemplate restTemplate;
-    
-    public PexelsService() {
-        this.restTemplate = new RestTemplate();
+
+    // Overridable so the lookups can be pointed at a local stub server
+    @Value("${pexels.api.url:https://api.pexels.com/v1}")
+    private String apiUrl;
+
+    @Value("${pexels.api.timeout-ms:5000}")
+    private long timeoutMillis;
+
+    @Value("${pexels.api.retries:2}")
+    private int retries;
+
+    @Autowired
+    private WebClient.Builder webClientBuilder;
+
+    // Marks a name the search had no photo for; TtlCache doesn't hold nulls
+    private static final String NO_IMAGE = "";
+
+    // Dish name -> image URL, shared by menu enrichment and the food-image endpoint
+    private final TtlCache<String, String> imageUrls = new TtlCache<>(5_000, Duration.ofHours(12));
+
+    // One pending lookup per name; later callers subscribe to the same cached Mono
+    private final ConcurrentHashMap<String, Mono<String>> inFlight = new ConcurrentHashMap<>();
+
+    private final CircuitBreaker circuitBreaker = new CircuitBreaker(5, Duration.ofSeconds(30));
+    private WebClient webClient;
+
+    @PostConstruct
+    void init() {
+        webClient = webClientBuilder.baseUrl(apiUrl).build();
     }
-    
-    public String getImageUrlForFood(String foodName) {
-        try {
-            String searchUrl = PEXELS_API_URL + "?query=" + foodName + "+food&per_page=1";
-            var headers = new org.springframework.http.HttpHeaders();
-            headers.set("Authorization", apiKey);
-            
-            var requestEntity = new org.springframework.http.HttpEntity<>(headers);
-            var response = restTemplate.exchange(
-                searchUrl,
-                org.springframework.http.HttpMethod.GET,
-                requestEntity,
-                PexelsResponse.class
-            );
-            
-            if (response.getBody() != null && !response.getBody().photos.isEmpty()) {
-                return response.getBody().photos.get(0).src.medium;
+
+    /**
+     * Looks up an image for the dish without blocking. Completes empty when the search has no
+     * photo, and with an error once retries are exhausted or while the circuit is open.
+     * Results, including "no photo", are cached by normalized name, and concurrent lookups for
+     * the same name share one outbound call.
+     */
+    public Mono<String> findImageUrl(String foodName) {
+        String key = cacheKey(foodName);
+        if (key.isEmpty()) {
+            return Mono.empty();
+        }
+        String cached = imageUrls.get(key);
+        if (cached != null) {
+            return cached.isEmpty() ? Mono.empty() : Mono.just(cached);
+        }
+
+        return inFlight.computeIfAbsent(key, k -> search(k)
+                .doOnSuccess(imageUrl -> imageUrls.put(k, imageUrl != null ? imageUrl : NO_IMAGE))
+                .doFinally(signal -> inFlight.remove(k))
+                .cache());
+    }
+
+    public Map<String, Object> getCacheStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("hits", imageUrls.getHits());
+        stats.put("misses", imageUrls.getMisses());
+        stats.put("cachedNames", imageUrls.size());
+        stats.put("inFlight", inFlight.size());
+        return stats;
+    }
+
+    private Mono<String> search(String foodName) {
+        return Mono.defer(() -> {
+            if (!circuitBreaker.allowRequest()) {
+                return Mono.error(new IllegalStateException("Image search is temporarily unavailable"));
             }
-            return "default-food-image-url.jpg";
-        } catch (Exception e) {
-            return "default-food-image-url.jpg";
+            return webClient.get()
+                    .uri(uri -> uri.path("/search")
+                            .queryParam("query", foodName + " food")
+                            .queryParam("per_page", 1)
+                            .build())
+                    .header("Authorization", apiKey)
+                    .retrieve()
+                    .bodyToMono(PexelsResponse.class)
+                    .timeout(Duration.ofMillis(timeoutMillis))
+                    .retryWhen(Retry.backoff(retries, Duration.ofMillis(300)).filter(this::isRetryable))
+                    .doOnSuccess(response -> circuitBreaker.recordSuccess())
+                    .doOnError(e -> circuitBreaker.recordFailure())
+                    .flatMap(response -> response.photos != null && !response.photos.isEmpty()
+                            && response.photos.get(0).src != null && response.photos.get(0).src.medium != null
+                            ? Mono.just(response.photos.get(0).src.medium)
+                            : Mono.empty());
+        });
+    }
+
+    public CircuitBreaker.State getCircuitState() {
+        return circuitBreaker.getState();
+    }
+
+    private static String cacheKey(String foodName) {
+        return foodName == null ? "" : foodName.trim().toLowerCase(Locale.ROOT).replaceAll("\\s+", " ");
+    }
+
+    // Timeouts, connection failures, throttling and server errors are worth another try
+    private boolean isRetryable(Throwable e) {
+        if (e instanceof TimeoutException || e instanceof WebClientRequestException) {
+            return true;
+        }
+        if (e instanceof WebClientResponseException) {
+            int status = ((WebClientResponseException) e).getRawStatusCode();
+            return status == 429 || status >= 500;
         }
+        return false;
     }
 }
 
@@ -53,4 +145,4 @@ class Photo {
 
 class PhotoSource {
     public String medium;
-}
\ No newline at end of file
+}
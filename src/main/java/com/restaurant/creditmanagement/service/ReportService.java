@@ -0,0 +1,52 @@
+package com.restaurant.creditmanagement.service;
+
+import com.restaurant.creditmanagement.model.AdminStats;
+import com.restaurant.creditmanagement.repository.OrderRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Builds the detailed analytics report without touching individual orders: the menu
+ * sections are grouped inside Mongo, the time-based sections come from the hourly sales
+ * rollups, the customer segments from one grouped count, and the average order value
+ * from the maintained admin stats.
+ */
+@Service
+public class ReportService {
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private CustomerService customerService;
+
+    @Autowired
+    private SalesRollupService salesRollupService;
+
+    @Autowired
+    private AdminStatsService adminStatsService;
+
+    public Map<String, Object> getDetailedAnalytics(String adminId) {
+        Map<String, Object> timeBasedAnalysis = new HashMap<>();
+        timeBasedAnalysis.put("peakHours", salesRollupService.getPeakHours(adminId));
+        timeBasedAnalysis.put("weeklyTrends", salesRollupService.getWeeklyTrends(adminId));
+
+        Map<String, Object> menuAnalytics = new HashMap<>();
+        menuAnalytics.put("topSellingItems", orderRepository.aggregateTopSellingItems(adminId, "quantity", 0));
+        menuAnalytics.put("categoryPerformance", orderRepository.aggregateCategoryPerformance(adminId, "revenue", 0));
+        menuAnalytics.put("timeBasedAnalysis", timeBasedAnalysis);
+
+        AdminStats stats = adminStatsService.getStats(adminId);
+        Map<String, Object> customerAnalytics = new HashMap<>(customerService.getCustomerSegments(adminId));
+        customerAnalytics.put("averageOrderValue", stats.getOrderCount() == 0 ? 0.0
+                : stats.getRevenue().doubleValue() / stats.getOrderCount());
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("menuAnalytics", menuAnalytics);
+        response.put("customerAnalytics", customerAnalytics);
+        return response;
+    }
+}
@@ -0,0 +1,342 @@
+package com.restaurant.creditmanagement.service;
+
+import com.restaurant.creditmanagement.model.Admin;
+import com.restaurant.creditmanagement.model.Order;
+import com.restaurant.creditmanagement.model.SalesRollup;
+import com.restaurant.creditmanagement.model.SalesRollupStatus;
+import com.restaurant.creditmanagement.repository.AdminRepository;
+import com.restaurant.creditmanagement.repository.OrderRepository;
+import com.restaurant.creditmanagement.repository.SalesRollupRepository;
+import com.restaurant.creditmanagement.repository.SalesRollupStatusRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Hourly sales rollups per admin. Every order write upserts its hour bucket with $inc and bumps
+ * the bucket's version; a rebuild recomputes the buckets from the order history and swaps each
+ * one in only if its version hasn't moved, recomputing just that hour otherwise. Admins are
+ * backfilled once, recorded in sales_rollup_status, and every admin is rebuilt nightly to
+ * correct drift. Time-based reports read these buckets instead of the orders.
+ */
+@Service
+public class SalesRollupService {
+    private static final Logger logger = LoggerFactory.getLogger(SalesRollupService.class);
+
+    private static final DateTimeFormatter DAY_FORMAT = DateTimeFormatter.ISO_LOCAL_DATE;
+    private static final int BACKFILL_BATCH_SIZE = 500;
+    private static final int MAX_BUCKET_ATTEMPTS = 5;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private SalesRollupRepository salesRollupRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private SalesRollupStatusRepository salesRollupStatusRepository;
+
+    @Autowired
+    private AdminRepository adminRepository;
+
+    @Value("${app.rollups.backfill-on-startup:true}")
+    private boolean backfillOnStartup;
+
+    public void recordOrder(Order order) {
+        applyDelta(order, 1);
+    }
+
+    public void removeOrder(Order order) {
+        applyDelta(order, -1);
+    }
+
+    /**
+     * {@link #recordOrder} for a batch of new orders: the orders are summed into their hour
+     * buckets first, then each bucket gets one $inc upsert, in one unordered bulk write.
+     */
+    public void recordOrders(List<Order> orders) {
+        try {
+            Map<String, SalesRollup> buckets = new HashMap<>();
+            addToBuckets(orders, buckets);
+            if (buckets.isEmpty()) {
+                return;
+            }
+            BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, SalesRollup.class);
+            for (SalesRollup bucket : buckets.values()) {
+                Update update = new Update()
+                        .setOnInsert("adminId", bucket.getAdminId())
+                        .setOnInsert("day", bucket.getDay())
+                        .setOnInsert("hour", bucket.getHour())
+                        .setOnInsert("dayOfWeek", bucket.getDayOfWeek())
+                        .inc("version", 1)
+                        .inc("orderCount", bucket.getOrderCount())
+                        .inc("revenue", bucket.getRevenue());
+                bulk.upsert(Query.query(Criteria.where("id").is(bucket.getId())), update);
+            }
+            bulk.execute();
+        } catch (Exception e) {
+            // The nightly rebuild corrects the buckets; never fail the order writes
+            logger.warn("Failed to update sales rollups for {} orders: {}", orders.size(), e.getMessage());
+        }
+    }
+
+    public List<Map<String, Object>> getPeakHours(String adminId) {
+        Map<Integer, Long> hourlyOrders = new HashMap<>();
+        for (SalesRollup rollup : salesRollupRepository.findTotalsByAdminId(adminId)) {
+            hourlyOrders.merge(rollup.getHour(), rollup.getOrderCount(), Long::sum);
+        }
+
+        List<Map<String, Object>> peakHours = new ArrayList<>();
+        hourlyOrders.forEach((hour, count) -> {
+            if (count <= 0) {
+                return;
+            }
+            Map<String, Object> hourData = new HashMap<>();
+            hourData.put("hour", String.format("%02d:00", hour));
+            hourData.put("orders", count);
+            peakHours.add(hourData);
+        });
+        return peakHours;
+    }
+
+    public List<Map<String, Object>> getWeeklyTrends(String adminId) {
+        Map<String, Long> dailyOrders = new HashMap<>();
+        Map<String, BigDecimal> dailyRevenue = new HashMap<>();
+        for (SalesRollup rollup : salesRollupRepository.findTotalsByAdminId(adminId)) {
+            dailyOrders.merge(rollup.getDayOfWeek(), rollup.getOrderCount(), Long::sum);
+            dailyRevenue.merge(rollup.getDayOfWeek(), orZero(rollup.getRevenue()), BigDecimal::add);
+        }
+
+        List<Map<String, Object>> trends = new ArrayList<>();
+        dailyOrders.forEach((day, count) -> {
+            if (count <= 0) {
+                return;
+            }
+            Map<String, Object> dayData = new HashMap<>();
+            dayData.put("day", day);
+            dayData.put("orders", count);
+            dayData.put("revenue", dailyRevenue.get(day).doubleValue());
+            trends.add(dayData);
+        });
+        return trends;
+    }
+
+    /**
+     * Rebuilds the admin's rollups from every order without stopping live writes.
+     * Bucket versions are read before the orders, so a bucket whose version is unchanged at the
+     * swap saw no delta while the orders were read; any other bucket is recomputed on its own.
+     * The one gap left is an order saved just before its bucket's swap whose $inc lands after
+     * it; that order counts twice until the next nightly rebuild.
+     */
+    public void rebuild(String adminId) {
+        Map<String, Long> versions = new HashMap<>();
+        for (SalesRollup rollup : salesRollupRepository.findVersionsByAdminId(adminId)) {
+            versions.put(rollup.getId(), rollup.getVersion());
+        }
+
+        Map<String, SalesRollup> buckets = new HashMap<>();
+        List<Order> batch = new ArrayList<>(BACKFILL_BATCH_SIZE);
+        try (Stream<Order> orders = orderRepository.streamTotalsByAdminId(adminId)) {
+            orders.forEach(order -> {
+                batch.add(order);
+                if (batch.size() >= BACKFILL_BATCH_SIZE) {
+                    addToBuckets(batch, buckets);
+                    batch.clear();
+                }
+            });
+        }
+        addToBuckets(batch, buckets);
+
+        Set<String> bucketIds = new HashSet<>(versions.keySet());
+        bucketIds.addAll(buckets.keySet());
+        int recomputed = 0;
+        for (String bucketId : bucketIds) {
+            if (!swapIn(bucketId, versions.get(bucketId), buckets.get(bucketId))) {
+                rebuildBucket(adminId, bucketId);
+                recomputed++;
+            }
+        }
+
+        SalesRollupStatus status = new SalesRollupStatus();
+        status.setAdminId(adminId);
+        status.setRebuiltAt(LocalDateTime.now());
+        salesRollupStatusRepository.save(status);
+        logger.info("Rebuilt {} sales rollups for admin {} ({} recomputed after concurrent writes)",
+                buckets.size(), adminId, recomputed);
+    }
+
+    // Runs in the background so a large history doesn't hold up startup
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillMissingRollups() {
+        if (!backfillOnStartup) {
+            return;
+        }
+        Thread backfill = new Thread(() -> {
+            for (Admin admin : adminRepository.findAll()) {
+                try {
+                    // Live orders create buckets too, so only the marker says the history is in
+                    if (!salesRollupStatusRepository.existsById(admin.getId())) {
+                        rebuild(admin.getId());
+                    }
+                } catch (Exception e) {
+                    logger.warn("Failed to backfill sales rollups for admin {}: {}", admin.getId(), e.getMessage());
+                }
+            }
+        }, "sales-rollup-backfill");
+        backfill.setDaemon(true);
+        backfill.start();
+    }
+
+    @Scheduled(cron = "${app.rollups.reconcile-cron:0 45 3 * * *}")
+    public void reconcileAll() {
+        for (Admin admin : adminRepository.findAll()) {
+            try {
+                rebuild(admin.getId());
+            } catch (Exception e) {
+                logger.warn("Failed to rebuild sales rollups for admin {}: {}", admin.getId(), e.getMessage());
+            }
+        }
+    }
+
+    // Recomputes one hour from its orders until the swap wins; the nightly rebuild catches a bucket that never does
+    private void rebuildBucket(String adminId, String bucketId) {
+        LocalDateTime start = bucketStart(bucketId);
+        LocalDateTime end = start.plusHours(1);
+        for (int attempt = 0; attempt < MAX_BUCKET_ATTEMPTS; attempt++) {
+            SalesRollup current = salesRollupRepository.findById(bucketId).orElse(null);
+            Query query = Query.query(Criteria.where("adminId").is(adminId).orOperator(
+                    Criteria.where("orderDate").gte(start).lt(end),
+                    Criteria.where("orderDate").is(null).and("createdAt").gte(start).lt(end)));
+            query.fields().include("adminId", "orderDate", "createdAt", "totalAmount");
+            Map<String, SalesRollup> buckets = new HashMap<>();
+            addToBuckets(mongoTemplate.find(query, Order.class), buckets);
+
+            if (swapIn(bucketId, current != null ? current.getVersion() : null, buckets.get(bucketId))) {
+                return;
+            }
+        }
+        logger.warn("Sales rollup {} kept changing during the rebuild; leaving it for the next one", bucketId);
+    }
+
+    /**
+     * Replaces the bucket with the rebuilt one, or removes it if the rebuild has none, provided
+     * its version is still {@code expectedVersion} (null: the bucket didn't exist). Returns
+     * false if a delta got there first.
+     */
+    private boolean swapIn(String bucketId, Long expectedVersion, SalesRollup rebuilt) {
+        if (expectedVersion == null) {
+            if (rebuilt == null) {
+                return !salesRollupRepository.existsById(bucketId);
+            }
+            try {
+                salesRollupRepository.insert(rebuilt);
+                return true;
+            } catch (DuplicateKeyException e) {
+                return false;
+            }
+        }
+
+        Query current = Query.query(Criteria.where("id").is(bucketId).and("version").is(expectedVersion));
+        if (rebuilt == null) {
+            return mongoTemplate.remove(current, SalesRollup.class).getDeletedCount() == 1;
+        }
+        Update replacement = new Update()
+                .set("orderCount", rebuilt.getOrderCount())
+                .set("revenue", rebuilt.getRevenue())
+                // Per-item maps that older versions kept here; nothing reads them
+                .unset("itemQuantities")
+                .unset("categoryCounts")
+                .inc("version", 1);
+        return mongoTemplate.updateFirst(current, replacement, SalesRollup.class).getMatchedCount() == 1;
+    }
+
+    private void addToBuckets(List<Order> orders, Map<String, SalesRollup> buckets) {
+        for (Order order : orders) {
+            LocalDateTime time = bucketTime(order);
+            if (time == null) {
+                continue;
+            }
+            SalesRollup bucket = buckets.computeIfAbsent(bucketId(order.getAdminId(), time), id -> {
+                SalesRollup rollup = new SalesRollup();
+                rollup.setId(id);
+                rollup.setAdminId(order.getAdminId());
+                rollup.setDay(time.format(DAY_FORMAT));
+                rollup.setHour(time.getHour());
+                rollup.setDayOfWeek(time.getDayOfWeek().toString());
+                return rollup;
+            });
+            bucket.setOrderCount(bucket.getOrderCount() + 1);
+            bucket.setRevenue(bucket.getRevenue().add(orZero(order.getTotalAmount())));
+        }
+    }
+
+    private void applyDelta(Order order, int sign) {
+        LocalDateTime time = bucketTime(order);
+        if (time == null) {
+            return;
+        }
+        try {
+            BigDecimal revenue = orZero(order.getTotalAmount());
+            Update update = new Update()
+                    .setOnInsert("adminId", order.getAdminId())
+                    .setOnInsert("day", time.format(DAY_FORMAT))
+                    .setOnInsert("hour", time.getHour())
+                    .setOnInsert("dayOfWeek", time.getDayOfWeek().toString())
+                    .inc("version", 1)
+                    .inc("orderCount", sign)
+                    .inc("revenue", sign > 0 ? revenue : revenue.negate());
+
+            mongoTemplate.upsert(Query.query(Criteria.where("id").is(bucketId(order.getAdminId(), time))),
+                    update, SalesRollup.class);
+        } catch (Exception e) {
+            // The backfill can rebuild the buckets; never fail the order write
+            logger.warn("Failed to update sales rollup for order {}: {}", order.getId(), e.getMessage());
+        }
+    }
+
+    private static LocalDateTime bucketTime(Order order) {
+        return order.getOrderDate() != null ? order.getOrderDate() : order.getCreatedAt();
+    }
+
+    private static String bucketId(String adminId, LocalDateTime time) {
+        return adminId + ":" + time.format(DAY_FORMAT) + ":" + String.format("%02d", time.getHour());
+    }
+
+    // The bucket id ends with ":yyyy-MM-dd:HH"
+    private static LocalDateTime bucketStart(String bucketId) {
+        int hourSeparator = bucketId.lastIndexOf(':');
+        int daySeparator = bucketId.lastIndexOf(':', hourSeparator - 1);
+        LocalDate day = LocalDate.parse(bucketId.substring(daySeparator + 1, hourSeparator), DAY_FORMAT);
+        return day.atTime(Integer.parseInt(bucketId.substring(hourSeparator + 1)), 0);
+    }
+
+    private static BigDecimal orZero(BigDecimal value) {
+        return value != null ? value : BigDecimal.ZERO;
+    }
+}
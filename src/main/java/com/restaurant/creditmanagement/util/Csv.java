@@ -0,0 +1,105 @@
+package com.restaurant.creditmanagement.util;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * RFC 4180 line formatting for the CSV exports. Fields containing a comma, quote or line break
+ * are quoted with inner quotes doubled. Text that a spreadsheet would run as a formula is
+ * prefixed with an apostrophe. {@link Reader} parses the same format for the bulk imports.
+ */
+public final class Csv {
+
+    private Csv() {
+    }
+
+    /** Joins the values into one CSV line, terminated with CRLF. Nulls become empty fields. */
+    public static String line(Object... values) {
+        StringBuilder line = new StringBuilder();
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                line.append(',');
+            }
+            line.append(field(values[i]));
+        }
+        return line.append("\r\n").toString();
+    }
+
+    static String field(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String text = value instanceof BigDecimal ? ((BigDecimal) value).toPlainString() : value.toString();
+        // Numbers are written as they are so negative amounts stay numeric
+        if (!(value instanceof Number) && !text.isEmpty() && "=+-@".indexOf(text.charAt(0)) >= 0) {
+            text = "'" + text;
+        }
+        if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+            return text;
+        }
+        return "\"" + text.replace("\"", "\"\"") + "\"";
+    }
+
+    /** Reads CSV records one at a time; quoted fields may contain commas, quotes and line breaks. */
+    public static final class Reader {
+        private final java.io.Reader in;
+        private long line = 1;
+
+        public Reader(java.io.Reader in) {
+            this.in = in;
+        }
+
+        // The line the next record starts on
+        public long getLine() {
+            return line;
+        }
+
+        /** The fields of the next record, or null at the end of the input. */
+        public List<String> next() throws IOException {
+            int c = in.read();
+            if (c == -1) {
+                return null;
+            }
+            List<String> fields = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            while (true) {
+                if (quoted) {
+                    if (c == -1) {
+                        throw new IllegalArgumentException("Unterminated quoted field");
+                    }
+                    if (c == '"') {
+                        int next = in.read();
+                        if (next != '"') {
+                            quoted = false;
+                            c = next;
+                            continue;
+                        }
+                        field.append('"');
+                    } else {
+                        if (c == '\n') {
+                            line++;
+                        }
+                        field.append((char) c);
+                    }
+                } else if (c == '"' && field.length() == 0) {
+                    quoted = true;
+                } else if (c == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else if (c == '\n' || c == -1) {
+                    if (c == '\n') {
+                        line++;
+                    }
+                    fields.add(field.toString());
+                    return fields;
+                } else if (c != '\r') {
+                    field.append((char) c);
+                }
+                c = in.read();
+            }
+        }
+    }
+}
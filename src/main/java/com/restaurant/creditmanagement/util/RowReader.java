@@ -0,0 +1,107 @@
+package com.restaurant.creditmanagement.util;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.restaurant.creditmanagement.dto.DataFormat;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads bulk import rows as field maps, from NDJSON (one object per line) or CSV (the first
+ * record names the columns). Empty CSV cells are left out of the map so defaults apply.
+ */
+public class RowReader implements Closeable {
+    private final DataFormat format;
+    private final BufferedReader in;
+    private final ObjectReader json;
+    private final Csv.Reader csv;
+    private List<String> header;
+    private long lineNumber;
+
+    public RowReader(DataFormat format, InputStream body, ObjectMapper objectMapper) {
+        this.format = format;
+        this.in = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8), 64 * 1024);
+        this.json = objectMapper.readerFor(Map.class);
+        this.csv = format == DataFormat.CSV ? new Csv.Reader(in) : null;
+    }
+
+    /**
+     * The next row, or null at the end of the input. A malformed row throws
+     * IllegalArgumentException; the reader can carry on with the row after it.
+     */
+    public Map<String, Object> next() throws IOException {
+        return format == DataFormat.CSV ? nextCsvRow() : nextJsonRow();
+    }
+
+    // The line the row last returned by next() starts on
+    public long getLineNumber() {
+        return lineNumber;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    private Map<String, Object> nextJsonRow() throws IOException {
+        String line;
+        do {
+            line = in.readLine();
+            lineNumber++;
+            if (line == null) {
+                return null;
+            }
+        } while (line.trim().isEmpty());
+
+        try {
+            return json.readValue(line);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Invalid JSON: " + e.getOriginalMessage());
+        }
+    }
+
+    private Map<String, Object> nextCsvRow() throws IOException {
+        if (header == null) {
+            List<String> names = csv.next();
+            if (names == null) {
+                return null;
+            }
+            header = new ArrayList<>();
+            for (String name : names) {
+                // Excel puts a byte order mark in front of the first column name
+                header.add(name.replace("\uFEFF", "").trim());
+            }
+        }
+
+        List<String> fields;
+        do {
+            lineNumber = csv.getLine();
+            fields = csv.next();
+            if (fields == null) {
+                return null;
+            }
+        } while (fields.size() == 1 && fields.get(0).trim().isEmpty());
+
+        if (fields.size() != header.size()) {
+            throw new IllegalArgumentException("Expected " + header.size() + " columns but found " + fields.size());
+        }
+        Map<String, Object> row = new LinkedHashMap<>();
+        for (int i = 0; i < fields.size(); i++) {
+            String value = fields.get(i).trim();
+            if (!value.isEmpty()) {
+                row.put(header.get(i), value);
+            }
+        }
+        return row;
+    }
+}
@@ -0,0 +1,191 @@
+package com.restaurant.creditmanagement.service;
+
+import com.restaurant.creditmanagement.util.CircuitBreaker;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs PexelsService against a local stub of the image search API, which answers each request
+ * with the next scripted status and body.
+ */
+class PexelsServiceTest {
+    private static final String PHOTO = "{\"photos\":[{\"src\":{\"medium\":\"https://images.example/pad-thai.jpg\"}}]}";
+    private static final String NO_PHOTOS = "{\"photos\":[]}";
+
+    private HttpServer server;
+    private final Deque<StubResponse> responses = new ConcurrentLinkedDeque<>();
+    private final List<String> queries = Collections.synchronizedList(new ArrayList<>());
+    private final List<String> authorizations = Collections.synchronizedList(new ArrayList<>());
+    private volatile CountDownLatch release;
+
+    private PexelsService pexelsService;
+
+    @BeforeEach
+    void startStub() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/v1/search", exchange -> {
+            queries.add(exchange.getRequestURI().getQuery());
+            authorizations.add(exchange.getRequestHeaders().getFirst("Authorization"));
+            CountDownLatch gate = release;
+            if (gate != null) {
+                try {
+                    gate.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            StubResponse response = responses.size() > 1 ? responses.poll() : responses.peek();
+            byte[] body = response.body.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(response.status, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+
+        pexelsService = new PexelsService();
+        ReflectionTestUtils.setField(pexelsService, "apiKey", "test-key");
+        ReflectionTestUtils.setField(pexelsService, "apiUrl", "http://127.0.0.1:" + server.getAddress().getPort() + "/v1");
+        ReflectionTestUtils.setField(pexelsService, "timeoutMillis", 2000L);
+        ReflectionTestUtils.setField(pexelsService, "retries", 2);
+        ReflectionTestUtils.setField(pexelsService, "webClientBuilder", WebClient.builder());
+        pexelsService.init();
+    }
+
+    @AfterEach
+    void stopStub() {
+        server.stop(0);
+    }
+
+    @Test
+    void returnsTheFirstPhotoAndSendsTheApiKey() {
+        respond(200, PHOTO);
+
+        StepVerifier.create(pexelsService.findImageUrl("Pad Thai"))
+                .expectNext("https://images.example/pad-thai.jpg")
+                .verifyComplete();
+
+        assertThat(queries).hasSize(1);
+        assertThat(queries.get(0)).contains("query=pad thai food").contains("per_page=1");
+        assertThat(authorizations).containsExactly("test-key");
+    }
+
+    @Test
+    void retriesServerErrorsAndThrottling() {
+        respond(503, "{}");
+        respond(429, "{}");
+        respond(200, PHOTO);
+
+        StepVerifier.create(pexelsService.findImageUrl("Pad Thai"))
+                .expectNext("https://images.example/pad-thai.jpg")
+                .verifyComplete();
+
+        assertThat(queries).hasSize(3);
+        assertThat(pexelsService.getCircuitState()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void doesNotRetryClientErrors() {
+        respond(401, "{}");
+
+        StepVerifier.create(pexelsService.findImageUrl("Pad Thai"))
+                .verifyError();
+
+        assertThat(queries).hasSize(1);
+    }
+
+    @Test
+    void failsOnceRetriesAreExhausted() {
+        respond(500, "{}");
+
+        StepVerifier.create(pexelsService.findImageUrl("Pad Thai"))
+                .verifyError();
+
+        assertThat(queries).hasSize(3);
+    }
+
+    @Test
+    void opensTheCircuitAfterRepeatedFailuresAndStopsCallingTheApi() {
+        ReflectionTestUtils.setField(pexelsService, "retries", 0);
+        respond(500, "{}");
+
+        for (int i = 0; i < 5; i++) {
+            StepVerifier.create(pexelsService.findImageUrl("Dish " + i)).verifyError();
+        }
+        assertThat(pexelsService.getCircuitState()).isEqualTo(CircuitBreaker.State.OPEN);
+
+        StepVerifier.create(pexelsService.findImageUrl("Another dish"))
+                .verifyErrorMessage("Image search is temporarily unavailable");
+        assertThat(queries).hasSize(5);
+    }
+
+    @Test
+    void cachesNoPhotoResults() {
+        respond(200, NO_PHOTOS);
+
+        StepVerifier.create(pexelsService.findImageUrl("Mystery stew")).verifyComplete();
+        StepVerifier.create(pexelsService.findImageUrl("  mystery   STEW ")).verifyComplete();
+
+        assertThat(queries).hasSize(1);
+    }
+
+    @Test
+    void concurrentLookupsForOneNameShareOneCall() {
+        respond(200, PHOTO);
+        release = new CountDownLatch(1);
+
+        Mono<String> first = pexelsService.findImageUrl("Pad Thai");
+        Mono<String> second = pexelsService.findImageUrl("pad thai");
+        StepVerifier.create(Mono.zip(first, second).doOnSubscribe(s -> releaseLater()))
+                .assertNext(both -> {
+                    assertThat(both.getT1()).isEqualTo("https://images.example/pad-thai.jpg");
+                    assertThat(both.getT2()).isEqualTo(both.getT1());
+                })
+                .verifyComplete();
+
+        assertThat(queries).hasSize(1);
+    }
+
+    private void releaseLater() {
+        CountDownLatch gate = release;
+        Mono.delay(Duration.ofMillis(200)).subscribe(tick -> gate.countDown());
+    }
+
+    private void respond(int status, String body) {
+        responses.add(new StubResponse(status, body));
+    }
+
+    private static class StubResponse {
+        final int status;
+        final String body;
+
+        StubResponse(int status, String body) {
+            this.status = status;
+            this.body = body;
+        }
+    }
+}